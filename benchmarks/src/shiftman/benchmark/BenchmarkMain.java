@@ -0,0 +1,36 @@
+package shiftman.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every ShiftMan benchmark with the gc profiler, which adds the allocation rate (bytes per operation) to
+ * the throughput and average time of each operation.
+ * Any JMH command line option can be given to override the defaults, for example:
+ * 		-p staff=1000 -p shiftsPerDay=100		to run one scale only
+ * 		QueryBenchmark.getRosterForWorker		to run matching benchmarks only
+ * 		-rf json -rff baseline.json				to save the results for comparing with later runs
+ * @author Martin Tiangco
+ *
+ */
+public final class BenchmarkMain {
+
+	private BenchmarkMain() {
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(commandLine);
+		if (commandLine.getIncludes().isEmpty()) {
+			builder.include("shiftman\\.benchmark\\..*");
+		}
+		Options options = builder.addProfiler(GCProfiler.class).build();
+		new Runner(options).run();
+	}
+}
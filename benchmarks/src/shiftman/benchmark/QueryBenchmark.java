@@ -0,0 +1,152 @@
+package shiftman.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import shiftman.server.RosterPage;
+import shiftman.server.ShiftManServer;
+
+/**
+ * QueryBenchmark measures every ShiftMan method that only reads the roster. The roster is built once per trial
+ * (see RosterData) and never changes, so each call measures the query alone.
+ * getShiftsBetween and getNextShifts (ShiftManServer only) are measured too, as they are polled constantly.
+ * The paged queries are measured getting a page of 50 from the middle of the results, using the token that a
+ * client paging from the start would have been given.
+ * displayRoster() keeps the last roster displayed until the roster changes, so displayRosterUncached writes the
+ * roster to a new StringBuilder each time instead.
+ * @author Martin Tiangco
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+	@Param({"100", "1000", "10000", "100000"})
+	public int staff;
+
+	@Param({"10", "100", "1000"})
+	public int shiftsPerDay;
+
+	private ShiftManServer _server;
+	private String _workerName;		//a staff member assigned as a worker
+	private String _managerName;	//a staff member assigned as a manager
+	private String _day;
+	private String _staffPageToken;		//token for the page of staff starting half way through
+	private String _shiftPageToken;		//token for the page of understaffed shifts starting half way through
+	private static final int PAGE_SIZE = 50;
+
+	@Setup(Level.Trial)
+	public void buildRoster() {
+		Random random = new Random(RosterData.SEED);
+		List<String[]> staffNames = RosterData.staffNames(staff, random);
+		List<String[]> shifts = RosterData.shifts(shiftsPerDay, random);
+		List<String[]> assignments = RosterData.assignments(shifts, staffNames, random);
+		_server = RosterData.roster(staffNames, shifts, assignments);
+		for (String[] a : assignments) {
+			String name = a[3] + " " + a[4];
+			if (Boolean.parseBoolean(a[5])) {
+				_managerName = _managerName == null ? name : _managerName;
+			} else {
+				_workerName = _workerName == null ? name : _workerName;
+			}
+		}
+		_day = RosterData.DAYS[random.nextInt(RosterData.DAYS.length)];
+		_staffPageToken = _server.getRegisteredStaff(null, Math.max(1, staff / 2)).getNextToken();
+		int understaffed = _server.understaffedShifts().size();
+		_shiftPageToken = _server.understaffedShifts(null, Math.max(1, understaffed / 2)).getNextToken();
+	}
+
+	@Benchmark
+	public List<String> getRegisteredStaff() {
+		return _server.getRegisteredStaff();
+	}
+
+	@Benchmark
+	public List<String> getUnassignedStaff() {
+		return _server.getUnassignedStaff();
+	}
+
+	@Benchmark
+	public List<String> shiftsWithoutManagers() {
+		return _server.shiftsWithoutManagers();
+	}
+
+	@Benchmark
+	public List<String> understaffedShifts() {
+		return _server.understaffedShifts();
+	}
+
+	@Benchmark
+	public List<String> overstaffedShifts() {
+		return _server.overstaffedShifts();
+	}
+
+	@Benchmark
+	public List<String> getRosterForDay() {
+		return _server.getRosterForDay(_day);
+	}
+
+	@Benchmark
+	public List<String> getRosterForWorker() {
+		return _server.getRosterForWorker(_workerName);
+	}
+
+	@Benchmark
+	public List<String> getShiftsManagedBy() {
+		return _server.getShiftsManagedBy(_managerName);
+	}
+
+	@Benchmark
+	public List<String> getShiftsBetween() {
+		return _server.getShiftsBetween("Tuesday", "10:00", "Thursday", "14:00");
+	}
+
+	@Benchmark
+	public List<String> getNextShifts() {
+		return _server.getNextShifts(_day, "12:00", 5);
+	}
+
+	@Benchmark
+	public RosterPage getRegisteredStaffPage() {
+		return _server.getRegisteredStaff(_staffPageToken, PAGE_SIZE);
+	}
+
+	@Benchmark
+	public RosterPage understaffedShiftsPage() {
+		return _server.understaffedShifts(_shiftPageToken, PAGE_SIZE);
+	}
+
+	@Benchmark
+	public String displayRoster() {
+		return _server.displayRoster();
+	}
+
+	@Benchmark
+	public StringBuilder displayRosterUncached() {
+		StringBuilder out = new StringBuilder();
+		_server.displayRoster(out);
+		return out;
+	}
+
+	@Benchmark
+	public String reportRosterIssues() {
+		return _server.reportRosterIssues();
+	}
+}
@@ -0,0 +1,166 @@
+package shiftman.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import shiftman.server.RosterCommand;
+import shiftman.server.ShiftManServer;
+
+/**
+ * RosterData makes the rosters used by the benchmarks. Everything is made from a seeded Random, so every run
+ * (and every fork) works on exactly the same data.
+ * This class has the following functionality:
+ * 		- makes unique staff names, in a shuffled order so they are not registered alphabetically
+ * 		- makes the shifts for a week: the same number each day, dividing the working hours 00:00-23:59 evenly
+ * 		- makes assignments: most shifts get a manager, and each shift gets 0-4 workers, never the same staff
+ * 		  member twice on one shift
+ * 		- builds a roster with any number of staff and shifts per day, through the public ShiftManServer methods
+ * @author Martin Tiangco
+ *
+ */
+public final class RosterData {
+	public static final long SEED = 251L;
+	public static final String[] DAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+	private static final String[] GIVEN_NAMES = {"Amy", "Ben", "Carl", "Dana", "Eli", "Fay", "Gus", "Hana", "Ivan",
+			"Jo", "Kai", "Lea", "Max", "Nia", "Omar", "Pia", "Quin", "Ray", "Sam", "Tia", "Uma", "Vic", "Wes", "Xia",
+			"Yan", "Zoe"};
+	private static final int WORKING_MINUTES = 23 * 60 + 59;		//00:00-23:59
+
+	private RosterData() {
+	}
+
+	/**
+	 * Makes unique staff names
+	 * @param count
+	 * @param random
+	 * @return {givenName, familyName} pairs, in shuffled order
+	 */
+	public static List<String[]> staffNames(int count, Random random) {
+		List<String[]> names = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			names.add(staffName(i, random));
+		}
+		Collections.shuffle(names, random);
+		return names;
+	}
+
+	/**
+	 * Makes the name of a staff member, unique for each number
+	 * @param number
+	 * @param random picks the given name
+	 * @return {givenName, familyName}
+	 */
+	public static String[] staffName(int number, Random random) {
+		return new String[] {GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)],
+				"Family" + Integer.toString(number, Character.MAX_RADIX)};
+	}
+
+	/**
+	 * Makes the shifts for a week, dividing each day's working hours evenly
+	 * @param shiftsPerDay at most 1439 (one minute each)
+	 * @param random picks the minimum number of workers
+	 * @return {dayOfWeek, startTime, endTime, minimumWorkers} for each shift, in chronological order
+	 */
+	public static List<String[]> shifts(int shiftsPerDay, Random random) {
+		int length = WORKING_MINUTES / shiftsPerDay;
+		List<String[]> shifts = new ArrayList<>(shiftsPerDay * DAYS.length);
+		for (String day : DAYS) {
+			for (int i = 0; i < shiftsPerDay; i++) {
+				int start = i * length;
+				shifts.add(new String[] {day, time(start), time(start + length), Integer.toString(random.nextInt(4))});
+			}
+		}
+		return shifts;
+	}
+
+	/**
+	 * Makes assignments of staff to shifts: a manager for 4 in 5 shifts, and 0-4 workers for every shift. Staff
+	 * cannot be assigned twice at the same time, so each shift gets different staff.
+	 * @param shifts see shifts()
+	 * @param staff see staffNames(), at least 5
+	 * @param random
+	 * @return {dayOfWeek, startTime, endTime, givenName, familyName, isManager} for each assignment
+	 */
+	public static List<String[]> assignments(List<String[]> shifts, List<String[]> staff, Random random) {
+		List<String[]> assignments = new ArrayList<>();
+		Set<Integer> onShift = new HashSet<>();
+		for (String[] shift : shifts) {
+			onShift.clear();
+			if (random.nextInt(5) != 0) {
+				assignments.add(assignment(shift, staff.get(pickStaff(staff.size(), onShift, random)), true));
+			}
+			int workers = random.nextInt(5);
+			for (int i = 0; i < workers; i++) {
+				assignments.add(assignment(shift, staff.get(pickStaff(staff.size(), onShift, random)), false));
+			}
+		}
+		return assignments;
+	}
+
+	/**
+	 * Picks a staff member that is not already on the shift
+	 * @return index of the staff member, which is added to onShift
+	 */
+	private static int pickStaff(int staffCount, Set<Integer> onShift, Random random) {
+		int index;
+		do {
+			index = random.nextInt(staffCount);
+		} while (!onShift.add(index));
+		return index;
+	}
+
+	private static String[] assignment(String[] shift, String[] staff, boolean isManager) {
+		return new String[] {shift[0], shift[1], shift[2], staff[0], staff[1], Boolean.toString(isManager)};
+	}
+
+	/**
+	 * Creates a roster with working hours 00:00-23:59 every day, and nothing else
+	 * @return the server
+	 */
+	public static ShiftManServer emptyRoster() {
+		ShiftManServer server = new ShiftManServer();
+		server.newRoster("Benchmark Shop");
+		for (String day : DAYS) {
+			server.setWorkingHours(day, "00:00", time(WORKING_MINUTES));
+		}
+		return server;
+	}
+
+	/**
+	 * Builds a roster with the given staff, shifts and assignments
+	 * @param staff see staffNames()
+	 * @param shifts see shifts()
+	 * @param assignments see assignments()
+	 * @return the server
+	 */
+	public static ShiftManServer roster(List<String[]> staff, List<String[]> shifts, List<String[]> assignments) {
+		ShiftManServer server = emptyRoster();
+		server.registerAllStaff(staff);
+		List<RosterCommand> commands = new ArrayList<>(shifts.size() + assignments.size());
+		for (String[] s : shifts) {
+			commands.add(RosterCommand.addShift(s[0], s[1], s[2], s[3]));
+		}
+		for (String[] a : assignments) {
+			commands.add(RosterCommand.assignStaff(a[0], a[1], a[2], a[3], a[4], Boolean.parseBoolean(a[5])));
+		}
+		for (String result : server.applyBatch(commands)) {
+			if (!result.isEmpty()) {
+				throw new IllegalStateException("Could not build benchmark roster: " + result);
+			}
+		}
+		return server;
+	}
+
+	/**
+	 * Converts minutes to format hh:mm
+	 * @param minutes
+	 * @return time
+	 */
+	public static String time(int minutes) {
+		return String.format("%02d:%02d", minutes / 60, minutes % 60);
+	}
+}
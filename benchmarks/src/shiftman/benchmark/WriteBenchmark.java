@@ -0,0 +1,208 @@
+package shiftman.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import shiftman.server.ShiftManServer;
+
+/**
+ * WriteBenchmark measures the ShiftMan methods that change the roster, one call at a time.
+ * The roster cannot be changed back, so each method works through a list of different changes:
+ * 		- registerStaff registers a new staff member each call, into a roster that starts each iteration with
+ * 		  the given number of staff
+ * 		- addShift adds the shifts for a week in shuffled order, so each one is inserted at a different position.
+ * 		  Once the week is full, a new empty roster is created (one roster per shiftsPerDay * 7 calls).
+ * 		- assignStaff goes through the assignments made by RosterData, into a roster that starts each iteration
+ * 		  with the staff and shifts but no assignments. Staff cannot be assigned to the same shift twice, so once
+ * 		  every assignment has been made, the roster is built again without assignments and they start again.
+ * 		- unassignStaff removes the same assignments, in the same order, from a roster that starts each iteration
+ * 		  with all of them made. Once every assignment has been removed, the roster is built again.
+ * A roster is only ever built again in a Level.Invocation setup, which JMH does not time, so building it (which
+ * takes far longer than one call at the larger scales) is never part of the results.
+ * Every result is checked, so a benchmark that stops making changes fails instead of measuring an error path.
+ * @author Martin Tiangco
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteBenchmark {
+
+	@State(Scope.Thread)
+	public static class StaffState {
+		@Param({"100", "1000", "10000", "100000"})
+		public int staff;
+
+		private ShiftManServer _server;
+		private Random _random;
+		private int _next;			//number of the next staff member to register
+
+		@Setup(Level.Iteration)
+		public void buildRoster() {
+			_random = new Random(RosterData.SEED);
+			_server = RosterData.emptyRoster();
+			_server.registerAllStaff(RosterData.staffNames(staff, _random));
+			_next = staff;
+		}
+
+		private String[] nextName() {
+			return RosterData.staffName(_next++, _random);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ShiftState {
+		@Param({"10", "100", "1000"})
+		public int shiftsPerDay;
+
+		private List<String[]> _shifts;
+		private ShiftManServer _server;
+		private int _next;			//index of the next shift to add
+
+		@Setup(Level.Iteration)
+		public void buildRoster() {
+			Random random = new Random(RosterData.SEED);
+			_shifts = new ArrayList<>(RosterData.shifts(shiftsPerDay, random));
+			Collections.shuffle(_shifts, random);
+			_server = RosterData.emptyRoster();
+			_next = 0;
+		}
+
+		@Setup(Level.Invocation)
+		public void resetIfFull() {
+			if (_next == _shifts.size()) {			//week is full
+				_server = RosterData.emptyRoster();
+				_next = 0;
+			}
+		}
+
+		private String[] nextShift() {
+			return _shifts.get(_next++);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class AssignState {
+		@Param({"100", "1000", "10000", "100000"})
+		public int staff;
+
+		@Param({"10", "100", "1000"})
+		public int shiftsPerDay;
+
+		private List<String[]> _staffNames;
+		private List<String[]> _shifts;
+		private List<String[]> _assignments;
+		private ShiftManServer _server;
+		private int _next;			//index of the next assignment to make
+
+		@Setup(Level.Iteration)
+		public void buildRoster() {
+			Random random = new Random(RosterData.SEED);
+			List<String[]> staffNames = RosterData.staffNames(staff, random);
+			List<String[]> shifts = RosterData.shifts(shiftsPerDay, random);
+			_staffNames = staffNames;
+			_shifts = shifts;
+			_assignments = RosterData.assignments(shifts, staffNames, random);
+			_server = RosterData.roster(staffNames, shifts, Collections.<String[]>emptyList());
+			_next = 0;
+		}
+
+		@Setup(Level.Invocation)
+		public void resetIfDone() {
+			if (_next == _assignments.size()) {		//every assignment has been made
+				_server = RosterData.roster(_staffNames, _shifts, Collections.<String[]>emptyList());
+				_next = 0;
+			}
+		}
+
+		private String[] nextAssignment() {
+			return _assignments.get(_next++);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class UnassignState {
+		@Param({"100", "1000", "10000", "100000"})
+		public int staff;
+
+		@Param({"10", "100", "1000"})
+		public int shiftsPerDay;
+
+		private List<String[]> _staffNames;
+		private List<String[]> _shifts;
+		private List<String[]> _assignments;
+		private ShiftManServer _server;
+		private int _next;			//index of the next assignment to remove
+
+		@Setup(Level.Iteration)
+		public void buildRoster() {
+			Random random = new Random(RosterData.SEED);
+			_staffNames = RosterData.staffNames(staff, random);
+			_shifts = RosterData.shifts(shiftsPerDay, random);
+			_assignments = RosterData.assignments(_shifts, _staffNames, random);
+			_server = RosterData.roster(_staffNames, _shifts, _assignments);
+			_next = 0;
+		}
+
+		@Setup(Level.Invocation)
+		public void resetIfDone() {
+			if (_next == _assignments.size()) {		//every assignment has been removed
+				_server = RosterData.roster(_staffNames, _shifts, _assignments);
+				_next = 0;
+			}
+		}
+
+		private String[] nextAssignment() {
+			return _assignments.get(_next++);
+		}
+	}
+
+	@Benchmark
+	public String registerStaff(StaffState state) {
+		String[] name = state.nextName();
+		return check(state._server.registerStaff(name[0], name[1]));
+	}
+
+	@Benchmark
+	public String addShift(ShiftState state) {
+		String[] s = state.nextShift();
+		return check(state._server.addShift(s[0], s[1], s[2], s[3]));
+	}
+
+	@Benchmark
+	public String assignStaff(AssignState state) {
+		String[] a = state.nextAssignment();
+		return check(state._server.assignStaff(a[0], a[1], a[2], a[3], a[4], Boolean.parseBoolean(a[5])));
+	}
+
+	@Benchmark
+	public String unassignStaff(UnassignState state) {
+		String[] a = state.nextAssignment();
+		return check(state._server.unassignStaff(a[0], a[1], a[2], a[3], a[4]));
+	}
+
+	private static String check(String result) {
+		if (!result.isEmpty()) {
+			throw new IllegalStateException(result);
+		}
+		return result;
+	}
+}
@@ -1,66 +1,57 @@
 package shiftman.server;
 
 /**
- * The DateTime class has the following functionality:
+ * The DateTime class refers to a period of time within a day, from a start time to an end time.
+ * This class has the following functionality:
+ * 		- converts start and end times in format hh:mm to TimeOfDay objects
  * 		- checks if start and end times are valid (in the range 00:00-23:59, startTime != endTime, startTime is before endTime)
- * 		- compares shifts in chronological order
- * All measurements are in minutes
- * A day consists of 0 mins (00:00) to 1439 mins (23:59)
+ * Invalid times (e.g. "9:00" or "24:00") are kept as null rather than throwing an exception, so that they can be
+ * reported by checkIfValidWorkingHours
  * @author Martin Tiangco
  *
  */
 
 public class DateTime {
 	//fields
-	private int _start;
-	private int _end;
+	private final TimeOfDay _start;
+	private final TimeOfDay _end;
 	
 	/**
-	 * Creates DateTime object with only startTime parameter (which slightly cleans up code in Shift class)
-	 * and converts String to integer (in minutes)
-	 * @param startTime
-	 */
-	public DateTime(String startTime) { 
-		_start = Integer.parseInt(startTime.substring(0, 2)) * 60 + Integer.parseInt(startTime.substring(3, 5));
-	}
-	
-	/**
-	 * Creates DateTime object with startTime and endTime parameters, and converts String to integer (in minutes)
+	 * Creates DateTime object with startTime and endTime parameters, and converts them to TimeOfDay
 	 * @param startTime
 	 * @param endTime
 	 */
 	public DateTime(String startTime, String endTime) { 
-		_start = Integer.parseInt(startTime.substring(0, 2)) * 60 + Integer.parseInt(startTime.substring(3, 5));
-		_end = 	Integer.parseInt(endTime.substring(0, 2)) * 60 + Integer.parseInt(endTime.substring(3, 5));
+		_start = TimeOfDay.parse(startTime);
+		_end = TimeOfDay.parse(endTime);
 	}
 	
 	/**
 	 * Checks if the working hours are valid
 	 * Valid means:
-	 * 		- time is between 00:00 (0 mins) and 23:59 (1439 mins) 
+	 * 		- both times are in format hh:mm, between 00:00 (0 mins) and 23:59 (1439 mins) 
 	 * 		- startTime != endTime
 	 * 		- startTime is BEFORE endTime
 	 * @return true if valid, false otherwise
 	 */
 	public boolean checkIfValidWorkingHours() {
-		if ((_start >= 0 && _start < 1440  
-				&& _end >= 0 && _end < 1440)
-				&& _start < _end) {				//check if startTime is before endTime and startTime != endTime
-			return true;
-		}
-		return false;
+		return _start != null && _end != null
+				&& _start.compareTo(_end) < 0;	//check if startTime is before endTime and startTime != endTime
+	}
+	
+	/**
+	 * Retrieves the start time
+	 * @return start time, or null if it was not valid
+	 */
+	public TimeOfDay getStartTime() {
+		return _start;
 	}
 	
 	/**
-	 * Used when ordering Shifts in compareTo method in Shift class
-	 * @param other - other DateTime object being compared to
-	 * @return 1 if "this" starts after other shift, -1 if "this" starts before
+	 * Retrieves the end time
+	 * @return end time, or null if it was not valid
 	 */
-	public int compareStart(DateTime other) {
-		if (this._start > other._start) {
-			return 1;
-		} else {
-			return -1;
-		}
+	public TimeOfDay getEndTime() {
+		return _end;
 	}
 }
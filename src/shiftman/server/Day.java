@@ -7,43 +7,49 @@ import java.util.List;
 /**
  * Day refers to the 7 days of the week and the shifts assigned for each day
  * This class has the following functionality:
- * 		- has a list of Shifts to do with each day, and allows you to add new shifts or retrieve existing shifts.
- * 		- the enum is used to sort List<Shift> in chronological order
+ * 		- has the Shifts to do with each day, and allows you to add new shifts or retrieve existing shifts.
+ * 			- shifts are kept in a list in chronological order, and found by binary search on their start time
+ * 			  (in minutes), so they can be found without going through every shift
+ * 			- shifts that overlap with an existing shift are rejected
  * 		- can set the working hours of each day
  * 		- can assign a shift to each day
- * 		- can retrieve existing shifts in the List
- * 
+ * 		- can retrieve existing shifts, or the shift that covers a given minute
+ * 		- keeps lists of understaffed, overstaffed and manager-less shifts up to date, in chronological order
+ * 		- keeps a coverage profile: for each minute, the number of shifts, workers required and workers assigned.
+ * 		  It is kept as difference arrays (the change at each minute), so adding a shift or a worker only changes
+ * 		  two entries of each, and the profile is worked out by adding up the changes when it is asked for.
+ * All lists are array based, so they can be read while another thread changes them without the reader
+ * getting stuck (the reader may see a mix of old and new values, see Roster for how this is handled).
+ * Day is not thread-safe by itself. Roster locks each day before using it.
+ *
  * @author Martin Tiangco
  */
 
-enum DayOfWeek {	//used for ordering
-	Monday(1), Tuesday(2), Wednesday(3), Thursday(4), Friday(5), Saturday(6), Sunday(7);
-	
-	private int _order;
-	
-	DayOfWeek(int order) {
-		_order = order;
-	}
-	
-	public int getOrder() {
-		return _order;
-	}
-}
-
 public class Day {
 	//fields
-	private final String _day;
+	private final DayOfWeek _day;
+	private final StaffTable _staffTable;		//given to each new shift
 	private boolean _workingHoursSet = false; //will be true once working hours are set
-	private String _startTime;
-	private String _endTime;
-	private List<Shift> _shifts = new ArrayList<Shift>();
+	private TimeOfDay _startTime;
+	private TimeOfDay _endTime;
+	private List<Shift> _shifts = new ArrayList<>();		//in chronological order
+	//shifts by staffing status, in chronological order
+	private List<Shift> _understaffedShifts = new ArrayList<>();
+	private List<Shift> _overstaffedShifts = new ArrayList<>();
+	private List<Shift> _shiftsWithoutManager = new ArrayList<>();
+	//coverage profile, see class comment. Indexed by minute (up to and including 24:00), null until a shift is added.
+	private int[] _shiftChanges;
+	private int[] _requiredChanges;
+	private int[] _workerChanges;
 	
 	/**
-	 * Creates a Day object based on the string given (one of the 7 days)
+	 * Creates a Day object for one of the 7 days
 	 * @param dayOfWeek
+	 * @param staffTable the roster's staff
 	 */
-	public Day(String dayOfWeek) {
-		_day = dayOfWeek;	
+	Day(DayOfWeek dayOfWeek, StaffTable staffTable) {
+		_day = dayOfWeek;
+		_staffTable = staffTable;
 	}
 	
 	/**
@@ -51,24 +57,84 @@ public class Day {
 	 * @param startTime
 	 * @param endTime
 	 */
-	public void setStartAndEndTimes(String startTime, String endTime) {
+	public void setStartAndEndTimes(TimeOfDay startTime, TimeOfDay endTime) {
 		_startTime = startTime;
 		_endTime = endTime;
 		_workingHoursSet = true;
 	}
 	
 	/**
-	 * Adds a shift based on the parameters given
-	 * @param dayOfWeek
+	 * Adds a shift to this day based on the parameters given
 	 * @param startTime
 	 * @param endTime
 	 * @param minimumWorkers
+	 * @return the new Shift, or null if the working hours for this day have not been set
+	 * @throws ShiftOverlapException if the shift overlaps with an existing shift on this day
 	 */
-	public void addShift(String dayOfWeek, String startTime, String endTime, String minimumWorkers) {
+	public Shift addShift(TimeOfDay startTime, TimeOfDay endTime, String minimumWorkers) throws ShiftOverlapException {
 		if (_workingHoursSet == true) {
-			Shift _shift = new Shift(dayOfWeek, startTime, endTime, minimumWorkers);
-			_shifts.add(_shift);														//add Shift object to List
-			Collections.sort(_shifts);													//sort by chronological order
+			Shift _shift = new Shift(_day, startTime, endTime, minimumWorkers, _staffTable);
+			if (overlaps(_shift.getStartMinute(), _shift.getEndMinute())) {
+				throw new ShiftOverlapException("ShiftOverlapException: Shift overlaps with an existing shift.");
+			}
+			int index = -(indexOf(_shift.getStartMinute()) + 1);						//where the shift would be inserted
+			_shifts.add(index, _shift);													//keeps chronological order
+			changeCoverage(_shift, 1, _shift.getMinimumWorkers(), 0);
+			updateStaffingStatus(_shift);
+			return _shift;
+		}
+		return null;
+	}
+	
+	/**
+	 * Checks if a shift with the given times would overlap with an existing shift on this day
+	 * @param startMinute
+	 * @param endMinute
+	 * @return true if an existing shift starts at the same time, or any part of the times are covered by one
+	 */
+	public boolean overlaps(int startMinute, int endMinute) {
+		int index = indexOf(startMinute);
+		if (index >= 0) {											//a shift already starts at this time
+			return true;
+		}
+		index = -(index + 1);										//where the shift would be inserted
+		return (index > 0 && _shifts.get(index - 1).getEndMinute() > startMinute)
+				|| (index < _shifts.size() && _shifts.get(index).getStartMinute() < endMinute);
+	}
+	
+	/**
+	 * Adds a shift without checking for overlaps or sorting, used when loading a saved roster (see RosterLoader)
+	 * or making a batch of changes (see RosterBatch).
+	 * finishLoad() must be called once every shift has been loaded.
+	 * @param shift
+	 */
+	void loadShift(Shift shift) {
+		_shifts.add(shift);
+	}
+	
+	/**
+	 * Sorts the shifts in chronological order and works out their staffing status, once loading has finished.
+	 * The shifts' staff must already be loaded.
+	 */
+	void finishLoad() {
+		Collections.sort(_shifts);
+		_understaffedShifts.clear();
+		_overstaffedShifts.clear();
+		_shiftsWithoutManager.clear();
+		_shiftChanges = null;
+		_requiredChanges = null;
+		_workerChanges = null;
+		for (Shift shift : _shifts) {				//in chronological order, so each list stays in order
+			int workers = shift.getNumberOfWorkers();
+			changeCoverage(shift, 1, shift.getMinimumWorkers(), workers);
+			if (workers < shift.getMinimumWorkers()) {
+				_understaffedShifts.add(shift);
+			} else if (workers > shift.getMinimumWorkers()) {
+				_overstaffedShifts.add(shift);
+			}
+			if (shift.getManagerStaff() == null) {
+				_shiftsWithoutManager.add(shift);
+			}
 		}
 	}
 	
@@ -78,26 +144,185 @@ public class Day {
 	 * @param endTime
 	 * @return the existing Shift object
 	 */
-	public Shift getExistingShift(String startTime, String endTime) {
-		//iterate through List<Shift> to find specified Shift
-		for (Shift s : _shifts) {
-			if (s.getStartTime().equals(startTime) && s.getEndTime().equals(endTime)) {
-				return s;
-			}
+	public Shift getExistingShift(TimeOfDay startTime, TimeOfDay endTime) {
+		if (startTime == null || endTime == null) {
+			return null;
+		}
+		int index = indexOf(startTime.getMinute());		//find shift by start time, then check the end time matches
+		if (index >= 0 && _shifts.get(index).getEndTime() == endTime) {	//only one TimeOfDay object exists for each minute
+			return _shifts.get(index);
+		}
+		return null;
+	}
+	
+	/**
+	 * Retrieves the shift that covers the given minute of the day
+	 * @param minute in minutes (0 mins is 00:00)
+	 * @return the Shift that starts at or before the minute and ends after it, or null if there is no such shift
+	 */
+	public Shift getShiftAt(int minute) {
+		int index = indexOf(minute);
+		if (index < 0) {
+			index = -(index + 1) - 1;					//last shift starting before the minute
+		}
+		if (index >= 0 && _shifts.get(index).getEndMinute() > minute) {
+			return _shifts.get(index);
 		}
 		return null;
 	}
 	
+	/**
+	 * Binary search for the shift starting at the given minute
+	 * @param startMinute
+	 * @return index of the shift, or (-(insertion point) - 1) if there is no shift starting at that minute
+	 */
+	private int indexOf(int startMinute) {
+		int low = 0;
+		int high = _shifts.size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midStart = _shifts.get(mid).getStartMinute();
+			if (midStart < startMinute) {
+				low = mid + 1;
+			} else if (midStart > startMinute) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+	
+	/**
+	 * Moves a shift in or out of the understaffed, overstaffed and manager-less lists.
+	 * Called whenever a shift is added or has staff assigned to it.
+	 * @param shift
+	 */
+	public void updateStaffingStatus(Shift shift) {
+		int workers = shift.getNumberOfWorkers();
+		updateList(_understaffedShifts, shift, workers < shift.getMinimumWorkers());
+		updateList(_overstaffedShifts, shift, workers > shift.getMinimumWorkers());
+		updateList(_shiftsWithoutManager, shift, shift.getManagerStaff() == null);
+	}
+	
+	/**
+	 * Records in the coverage profile that workers were added to or removed from a shift.
+	 * Must be called whenever the workers of a shift change (except while loading, see finishLoad).
+	 * @param shift
+	 * @param change number of workers added, or negative if removed
+	 */
+	public void changeWorkers(Shift shift, int change) {
+		changeCoverage(shift, 0, 0, change);
+	}
+	
+	/**
+	 * Adds to the number of shifts, workers required and workers assigned, for every minute of a shift
+	 */
+	private void changeCoverage(Shift shift, int shifts, int required, int workers) {
+		if (_shiftChanges == null) {
+			_shiftChanges = new int[TimeOfDay.MINUTES_PER_DAY + 1];
+			_requiredChanges = new int[TimeOfDay.MINUTES_PER_DAY + 1];
+			_workerChanges = new int[TimeOfDay.MINUTES_PER_DAY + 1];
+		}
+		int start = shift.getStartMinute();
+		int end = shift.getEndMinute();
+		_shiftChanges[start] += shifts;
+		_shiftChanges[end] -= shifts;
+		_requiredChanges[start] += required;
+		_requiredChanges[end] -= required;
+		_workerChanges[start] += workers;
+		_workerChanges[end] -= workers;
+	}
+	
+	/**
+	 * Retrieves how the working hours are covered by shifts and workers, as intervals in which the coverage
+	 * does not change, in format dayOfWeek[startTime-endTime] followed by either
+	 * 		- "x of y workers", where x workers are assigned and y are required
+	 * 		- "not covered by a shift"
+	 * @param gapsOnly true to only retrieve the intervals not covered by a shift, or with fewer workers than
+	 * 			required
+	 * @return intervals in chronological order, or an empty list if the working hours have not been set
+	 */
+	public List<String> getCoverage(boolean gapsOnly) {
+		List<String> intervals = new ArrayList<>();
+		if (_workingHoursSet == false) {
+			return intervals;
+		}
+		int start = _startTime.getMinute();
+		int end = _endTime.getMinute();
+		if (_shiftChanges == null) {
+			addCoverage(intervals, start, end, 0, 0, 0, gapsOnly);
+			return intervals;
+		}
+		int shifts = 0;
+		int required = 0;
+		int workers = 0;
+		for (int m = 0; m < start; m++) {							//coverage at the start of the working hours
+			shifts += _shiftChanges[m];
+			required += _requiredChanges[m];
+			workers += _workerChanges[m];
+		}
+		int intervalStart = start;
+		for (int m = start; m < end; m++) {
+			int nextShifts = shifts + _shiftChanges[m];
+			int nextRequired = required + _requiredChanges[m];
+			int nextWorkers = workers + _workerChanges[m];
+			if (nextShifts != shifts || nextRequired != required || nextWorkers != workers) {	//one shift ends, or another starts
+				addCoverage(intervals, intervalStart, m, shifts, required, workers, gapsOnly);
+				intervalStart = m;
+				shifts = nextShifts;
+				required = nextRequired;
+				workers = nextWorkers;
+			}
+		}
+		addCoverage(intervals, intervalStart, end, shifts, required, workers, gapsOnly);
+		return intervals;
+	}
+	
+	private void addCoverage(List<String> intervals, int start, int end, int shifts, int required, int workers,
+			boolean gapsOnly) {
+		if (start == end || (gapsOnly && shifts > 0 && workers >= required)) {
+			return;
+		}
+		String interval = _day + "[" + TimeOfDay.of(start) + "-" + TimeOfDay.of(end) + "] ";
+		if (shifts == 0) {
+			intervals.add(interval + "not covered by a shift");
+		} else {
+			intervals.add(interval + workers + " of " + required + " workers");
+		}
+	}
+	
+	private static void updateList(List<Shift> list, Shift shift, boolean belongs) {
+		int index = Collections.binarySearch(list, shift);
+		if (belongs && index < 0) {
+			list.add(-(index + 1), shift);				//keeps chronological order
+		} else if (!belongs && index >= 0) {
+			list.remove(index);
+		}
+	}
+	
+	public DayOfWeek getDayOfWeek() {
+		return _day;
+	}
+	
 	@Override
 	public String toString() {
-		return _day;
+		return _day.toString();
+	}
+	
+	/**
+	 * Checks if the working hours of the day have been set
+	 * @return true if set, false otherwise
+	 */
+	public boolean hasWorkingHours() {
+		return _workingHoursSet;
 	}
 	
 	/**
 	 * Retrieves the start time of the day's working hours
 	 * @return start time
 	 */
-	public String getStartWorkingHours() {
+	public TimeOfDay getStartWorkingHours() {
 		return _startTime;
 	}
 	
@@ -105,15 +330,39 @@ public class Day {
 	 * Retrieves the end time of the day's working hours
 	 * @return end time
 	 */
-	public String getEndWorkingHours() {
+	public TimeOfDay getEndWorkingHours() {
 		return _endTime;
 	}
 	
 	/**
-	 * Retrieves the list of Shifts for a specified day
-	 * @return list of shifts
+	 * Retrieves the Shifts for a specified day
+	 * @return shifts in chronological order (cannot be modified)
 	 */
 	public List<Shift> getListOfShifts() {
-		return _shifts;
+		return Collections.unmodifiableList(_shifts);
+	}
+	
+	/**
+	 * Retrieves the shifts with fewer workers than the minimum required
+	 * @return shifts in chronological order (cannot be modified)
+	 */
+	public List<Shift> getUnderstaffedShifts() {
+		return Collections.unmodifiableList(_understaffedShifts);
+	}
+	
+	/**
+	 * Retrieves the shifts with more workers than the minimum required
+	 * @return shifts in chronological order (cannot be modified)
+	 */
+	public List<Shift> getOverstaffedShifts() {
+		return Collections.unmodifiableList(_overstaffedShifts);
+	}
+	
+	/**
+	 * Retrieves the shifts without a manager
+	 * @return shifts in chronological order (cannot be modified)
+	 */
+	public List<Shift> getShiftsWithoutManager() {
+		return Collections.unmodifiableList(_shiftsWithoutManager);
 	}
 }
@@ -0,0 +1,59 @@
+package shiftman.server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DayOfWeek refers to the 7 days of the working week, in order from Monday to Sunday.
+ * This enum has the following functionality:
+ * 		- converts a day name given to the interface (case sensitive) into a DayOfWeek, once, so that
+ * 		  the rest of the server can index days and order shifts without comparing strings
+ * 		- the order of the constants is used to sort shifts in chronological order
+ * @author Martin Tiangco
+ */
+enum DayOfWeek {	//used for ordering
+	Monday(1), Tuesday(2), Wednesday(3), Thursday(4), Friday(5), Saturday(6), Sunday(7);
+	
+	private static final Map<String, DayOfWeek> _byName = new HashMap<>();
+	private static final DayOfWeek[] _byOrdinal = values();		//values() makes a new array every call
+	
+	static {
+		for (DayOfWeek day : values()) {
+			_byName.put(day.name(), day);
+		}
+	}
+	
+	private int _order;
+	
+	DayOfWeek(int order) {
+		_order = order;
+	}
+	
+	public int getOrder() {
+		return _order;
+	}
+	
+	/**
+	 * Converts the position of a day in the week (0 is Monday) into a DayOfWeek
+	 * @param ordinal
+	 * @return the DayOfWeek, or null if out of range
+	 */
+	public static DayOfWeek fromOrdinal(int ordinal) {
+		if (ordinal < 0 || ordinal >= _byOrdinal.length) {
+			return null;
+		}
+		return _byOrdinal[ordinal];
+	}
+	
+	/**
+	 * Converts the name of a day into a DayOfWeek
+	 * @param dayOfWeek must match one of the 7 days exactly
+	 * @return the DayOfWeek, or null if the name is misspelled or invalid
+	 */
+	public static DayOfWeek fromString(String dayOfWeek) {
+		if (dayOfWeek == null) {
+			return null;
+		}
+		return _byName.get(dayOfWeek);
+	}
+}
@@ -0,0 +1,245 @@
+package shiftman.server;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * InstrumentedShiftMan wraps any ShiftMan and records how each of its methods is used, without changing any result.
+ * This class has the following functionality:
+ * 		- for each method, records the number of calls, the number of errors and a histogram of how long each call
+ * 		  took (see MethodMetrics)
+ * 		- for methods that return a List<String>, records the number of strings returned
+ * 		- snapshot() retrieves everything recorded so far, and snapshotAndReset() retrieves it and starts again
+ * 		  (so a metrics scraper can get the calls since it last asked)
+ *
+ * Recording never locks: the histogram has one counter per power of 2 nanoseconds, and every count, including
+ * each histogram bucket, is a LongAdder. A LongAdder spreads additions from threads calling at the same time over
+ * separate cells, so they do not wait for each other even when their calls fall in the same bucket, and it only
+ * uses more memory for a bucket once threads have collided on it. The number of calls is the total of the
+ * histogram, so the only work added to each call is two System.nanoTime() calls and two or three LongAdder
+ * additions.
+ * A snapshot taken while calls are being made may include a call in one counter but not yet in another.
+ * @author Martin Tiangco
+ *
+ */
+public class InstrumentedShiftMan implements ShiftMan {
+	/**
+	 * The ShiftMan methods, in the same order as in ShiftMan
+	 */
+	private enum Method {
+		NEW_ROSTER("newRoster"), SET_WORKING_HOURS("setWorkingHours"), ADD_SHIFT("addShift"),
+		REGISTER_STAFF("registerStaff"), REGISTER_ALL_STAFF("registerAllStaff"), ASSIGN_STAFF("assignStaff"),
+		UNASSIGN_STAFF("unassignStaff"), GET_REGISTERED_STAFF("getRegisteredStaff"), GET_UNASSIGNED_STAFF("getUnassignedStaff"),
+		SHIFTS_WITHOUT_MANAGERS("shiftsWithoutManagers"), UNDERSTAFFED_SHIFTS("understaffedShifts"),
+		OVERSTAFFED_SHIFTS("overstaffedShifts"), GET_ROSTER_FOR_DAY("getRosterForDay"),
+		GET_ROSTER_FOR_WORKER("getRosterForWorker"), GET_SHIFTS_MANAGED_BY("getShiftsManagedBy"),
+		REPORT_ROSTER_ISSUES("reportRosterIssues"), DISPLAY_ROSTER("displayRoster");
+	
+		private final String _name;
+	
+		Method(String name) {
+			_name = name;
+		}
+	}
+	
+	/**
+	 * Everything recorded for one method
+	 */
+	private static final class Recorder {
+		private static final int BUCKETS = 64;			//enough for any long number of nanoseconds
+		private final LongAdder[] _latencyBuckets = new LongAdder[BUCKETS];
+		private final LongAdder _errors = new LongAdder();
+		private final LongAdder _totalNanos = new LongAdder();
+		private final LongAdder _resultItems = new LongAdder();
+		private final LongAccumulator _maxResultSize = new LongAccumulator(Math::max, 0);
+	
+		private Recorder() {
+			for (int i = 0; i < BUCKETS; i++) {
+				_latencyBuckets[i] = new LongAdder();
+			}
+		}
+	
+		private void record(long nanos, boolean error) {
+			_latencyBuckets[BUCKETS - Long.numberOfLeadingZeros(nanos)].increment();	//0 for 0ns, else log2 + 1
+			_totalNanos.add(nanos);
+			if (error) {
+				_errors.increment();
+			}
+		}
+	
+		private void recordResultSize(int size) {
+			_resultItems.add(size);
+			_maxResultSize.accumulate(size);
+		}
+	
+		private MethodMetrics snapshot(String method, boolean reset) {
+			long[] buckets = new long[BUCKETS];
+			long calls = 0;										//every call is counted in one bucket
+			for (int i = 0; i < BUCKETS; i++) {
+				buckets[i] = reset ? _latencyBuckets[i].sumThenReset() : _latencyBuckets[i].sum();
+				calls += buckets[i];
+			}
+			if (reset) {
+				return new MethodMetrics(method, calls, _errors.sumThenReset(), _totalNanos.sumThenReset(), buckets,
+						_resultItems.sumThenReset(), _maxResultSize.getThenReset());
+			}
+			return new MethodMetrics(method, calls, _errors.sum(), _totalNanos.sum(), buckets, _resultItems.sum(),
+					_maxResultSize.get());
+		}
+	}
+	
+	//fields
+	private final ShiftMan _shiftMan;
+	private final Recorder[] _recorders = new Recorder[Method.values().length];	//indexed by Method ordinal
+	
+	/**
+	 * Creates an InstrumentedShiftMan that passes every call on to the given ShiftMan
+	 * @param shiftMan
+	 */
+	public InstrumentedShiftMan(ShiftMan shiftMan) {
+		_shiftMan = shiftMan;
+		for (int i = 0; i < _recorders.length; i++) {
+			_recorders[i] = new Recorder();
+		}
+	}
+	
+	/**
+	 * Retrieves everything recorded since this was created or last reset
+	 * @return metrics for every method, by method name, in the same order as in ShiftMan
+	 */
+	public Map<String, MethodMetrics> snapshot() {
+		return snapshot(false);
+	}
+	
+	/**
+	 * Retrieves everything recorded since this was created or last reset, then starts recording again from zero
+	 * @return metrics for every method, by method name, in the same order as in ShiftMan
+	 */
+	public Map<String, MethodMetrics> snapshotAndReset() {
+		return snapshot(true);
+	}
+	
+	/**
+	 * Starts recording again from zero
+	 */
+	public void reset() {
+		snapshot(true);
+	}
+	
+	private Map<String, MethodMetrics> snapshot(boolean reset) {
+		Map<String, MethodMetrics> metrics = new LinkedHashMap<>();
+		for (Method m : Method.values()) {
+			metrics.put(m._name, _recorders[m.ordinal()].snapshot(m._name, reset));
+		}
+		return metrics;
+	}
+	
+	private String record(Method method, long start, String result) {
+		_recorders[method.ordinal()].record(System.nanoTime() - start, isError(result));
+		return result;
+	}
+	
+	private List<String> record(Method method, long start, List<String> result) {
+		long nanos = System.nanoTime() - start;
+		Recorder recorder = _recorders[method.ordinal()];
+		recorder.record(nanos, result.size() == 1 && isError(result.get(0)));	//errors are returned on their own
+		recorder.recordResultSize(result.size());
+		return result;
+	}
+	
+	private static boolean isError(String result) {
+		return result != null && (result.startsWith("%ERROR%") || result.startsWith("ERROR"));
+	}
+	
+	public String newRoster(String shopName) {
+		long start = System.nanoTime();
+		return record(Method.NEW_ROSTER, start, _shiftMan.newRoster(shopName));
+	}
+	
+	public String setWorkingHours(String dayOfWeek, String startTime, String endTime) {
+		long start = System.nanoTime();
+		return record(Method.SET_WORKING_HOURS, start, _shiftMan.setWorkingHours(dayOfWeek, startTime, endTime));
+	}
+	
+	public String addShift(String dayOfWeek, String startTime, String endTime, String minimumWorkers) {
+		long start = System.nanoTime();
+		return record(Method.ADD_SHIFT, start, _shiftMan.addShift(dayOfWeek, startTime, endTime, minimumWorkers));
+	}
+	
+	public String registerStaff(String givenname, String familyName) {
+		long start = System.nanoTime();
+		return record(Method.REGISTER_STAFF, start, _shiftMan.registerStaff(givenname, familyName));
+	}
+	
+	public List<String> registerAllStaff(List<String[]> names) {
+		long start = System.nanoTime();
+		return record(Method.REGISTER_ALL_STAFF, start, _shiftMan.registerAllStaff(names));
+	}
+	
+	public String assignStaff(String dayOfWeek, String startTime, String endTime, String givenName,
+			String familyName, boolean isManager) {
+		long start = System.nanoTime();
+		return record(Method.ASSIGN_STAFF, start,
+				_shiftMan.assignStaff(dayOfWeek, startTime, endTime, givenName, familyName, isManager));
+	}
+	
+	public String unassignStaff(String dayOfWeek, String startTime, String endTime, String givenName,
+			String familyName) {
+		long start = System.nanoTime();
+		return record(Method.UNASSIGN_STAFF, start,
+				_shiftMan.unassignStaff(dayOfWeek, startTime, endTime, givenName, familyName));
+	}
+	
+	public List<String> getRegisteredStaff() {
+		long start = System.nanoTime();
+		return record(Method.GET_REGISTERED_STAFF, start, _shiftMan.getRegisteredStaff());
+	}
+	
+	public List<String> getUnassignedStaff() {
+		long start = System.nanoTime();
+		return record(Method.GET_UNASSIGNED_STAFF, start, _shiftMan.getUnassignedStaff());
+	}
+	
+	public List<String> shiftsWithoutManagers() {
+		long start = System.nanoTime();
+		return record(Method.SHIFTS_WITHOUT_MANAGERS, start, _shiftMan.shiftsWithoutManagers());
+	}
+	
+	public List<String> understaffedShifts() {
+		long start = System.nanoTime();
+		return record(Method.UNDERSTAFFED_SHIFTS, start, _shiftMan.understaffedShifts());
+	}
+	
+	public List<String> overstaffedShifts() {
+		long start = System.nanoTime();
+		return record(Method.OVERSTAFFED_SHIFTS, start, _shiftMan.overstaffedShifts());
+	}
+	
+	public List<String> getRosterForDay(String dayOfWeek) {
+		long start = System.nanoTime();
+		return record(Method.GET_ROSTER_FOR_DAY, start, _shiftMan.getRosterForDay(dayOfWeek));
+	}
+	
+	public List<String> getRosterForWorker(String workerName) {
+		long start = System.nanoTime();
+		return record(Method.GET_ROSTER_FOR_WORKER, start, _shiftMan.getRosterForWorker(workerName));
+	}
+	
+	public List<String> getShiftsManagedBy(String managerName) {
+		long start = System.nanoTime();
+		return record(Method.GET_SHIFTS_MANAGED_BY, start, _shiftMan.getShiftsManagedBy(managerName));
+	}
+	
+	public String reportRosterIssues() {
+		long start = System.nanoTime();
+		return record(Method.REPORT_ROSTER_ISSUES, start, _shiftMan.reportRosterIssues());
+	}
+	
+	public String displayRoster() {
+		long start = System.nanoTime();
+		return record(Method.DISPLAY_ROSTER, start, _shiftMan.displayRoster());
+	}
+}
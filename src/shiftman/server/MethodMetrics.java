@@ -0,0 +1,123 @@
+package shiftman.server;
+
+/**
+ * MethodMetrics is what InstrumentedShiftMan has recorded for one ShiftMan method, at the time it was retrieved.
+ * It never changes.
+ * This class has the following functionality:
+ * 		- number of calls, and number of calls that returned an error
+ * 		- latency histogram: bucket i counts calls that took from 2^(i-1) to 2^i - 1 nanoseconds (bucket 0 counts
+ * 		  calls that took 0ns), and the mean and percentile latencies worked out from it
+ * 		- for methods that return a List<String>, the total and largest number of strings returned
+ * @author Martin Tiangco
+ *
+ */
+public final class MethodMetrics {
+	//fields
+	private final String _method;
+	private final long _calls;
+	private final long _errors;
+	private final long _totalNanos;
+	private final long[] _latencyBuckets;
+	private final long _resultItems;
+	private final long _maxResultSize;
+	
+	MethodMetrics(String method, long calls, long errors, long totalNanos, long[] latencyBuckets, long resultItems,
+			long maxResultSize) {
+		_method = method;
+		_calls = calls;
+		_errors = errors;
+		_totalNanos = totalNanos;
+		_latencyBuckets = latencyBuckets;
+		_resultItems = resultItems;
+		_maxResultSize = maxResultSize;
+	}
+	
+	public String getMethod() {
+		return _method;
+	}
+	
+	public long getCalls() {
+		return _calls;
+	}
+	
+	/**
+	 * Retrieves the number of calls that returned an error (a string starting with "%ERROR%", or a list with only
+	 * an error in it)
+	 * @return number of errors
+	 */
+	public long getErrors() {
+		return _errors;
+	}
+	
+	public long getTotalNanos() {
+		return _totalNanos;
+	}
+	
+	/**
+	 * Retrieves the mean latency
+	 * @return mean in nanoseconds, or 0 if there were no calls
+	 */
+	public double getMeanNanos() {
+		return _calls == 0 ? 0 : (double) _totalNanos / _calls;
+	}
+	
+	/**
+	 * Retrieves an upper bound on a percentile of the latency, from the histogram. The result is the end of the
+	 * bucket the percentile falls in, so it is at most twice the real value.
+	 * @param percentile in the range 0-100, e.g. 99 for the 99th percentile
+	 * @return latency in nanoseconds, or 0 if there were no calls
+	 */
+	public long getPercentileNanos(double percentile) {
+		long total = 0;
+		for (long count : _latencyBuckets) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100);
+		long seen = 0;
+		for (int i = 0; i < _latencyBuckets.length; i++) {
+			seen += _latencyBuckets[i];
+			if (seen >= rank && _latencyBuckets[i] > 0) {
+				return i == 0 ? 0 : (1L << i) - 1;
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+	
+	/**
+	 * Retrieves the latency histogram
+	 * @return a copy of the bucket counts (see class comment)
+	 */
+	public long[] getLatencyBuckets() {
+		return _latencyBuckets.clone();
+	}
+	
+	/**
+	 * Retrieves the total number of strings returned, for methods that return a List<String>
+	 * @return total, or 0 for methods that return a String
+	 */
+	public long getResultItems() {
+		return _resultItems;
+	}
+	
+	/**
+	 * Retrieves the mean number of strings returned per call, for methods that return a List<String>
+	 * @return mean, or 0 if there were no calls
+	 */
+	public double getMeanResultSize() {
+		return _calls == 0 ? 0 : (double) _resultItems / _calls;
+	}
+	
+	public long getMaxResultSize() {
+		return _maxResultSize;
+	}
+	
+	@Override
+	public String toString() {
+		return _method + ": calls=" + _calls + " errors=" + _errors + " mean=" + Math.round(getMeanNanos())
+				+ "ns p50<=" + getPercentileNanos(50) + "ns p99<=" + getPercentileNanos(99) + "ns maxResultSize="
+				+ _maxResultSize;
+	}
+}
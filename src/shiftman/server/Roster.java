@@ -1,39 +1,105 @@
 package shiftman.server;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * Roster is passed all of the methods from ShiftManServer and is handled here. The bulk of the functionality to do
  * with roster handling is stored in this class.
  * This class has the following functionality:
  * 		- can create a new roster for the working week consisting of 7 days (providing the name is valid)
- * 				- stores all 7 days in a list
+ * 				- stores all 7 days in a map indexed by DayOfWeek
+ * 				- day names are converted to DayOfWeek once at the start of each method
  * 				- sets working hours for each day
  * 				- adds shifts to each day
  * 		- has a List<StaffWorker> which is a list of employee names that have been registered
- *   		 	- assigns staff to previously made shifts
+ * 			- the list is kept in alphabetical order, and the StaffTable indexes the same staff by case-folded name
+ * 			- each staff member is given an id when registered (see StaffTable), which shifts use to refer to them
+ *   		 	- assigns staff to previously made shifts, and removes them again
+ * 		- keeps lists of understaffed, overstaffed and manager-less shifts up to date (in each Day) as shifts are
+ * 		  added and staff are assigned, so those shifts can be retrieved without going through every shift
  * 		- throws checked exceptions in several methods for ShiftManServer class to catch
  *		- retrieves the following
  *				- registered staff
  * 					- and those unassigned to shifts
+ * 					- and those not assigned to any shift at a given time
  * 				- understaffed or overstaffed shifts
  * 				- shifts without manager
  * 				- rosters 
  * 					- for a specific day
  * 					- for worker (assumed that worker is NOT the manager)
  * 					- for manager
+ * 		- writes the roster for the whole week to any Appendable, and keeps the last one written as a String
+ * 		  until the roster is next changed
+ * 		- reports the issues with the roster, going through the days, shifts and staff only once
+ * 		- retrieves how each day's working hours are covered by shifts and workers, and where they are not
+ * 		- keeps every shift of the week in one index ordered by day and start time, so the shifts in a range of
+ * 		  the week, or the next shifts from a given time, are found in O(log n) without going through each day
+ * 		- can be used by many threads at once (see below)
+ * 		- publishes a new RosterSnapshot every time it is changed, which can be read without any locks
+ * 		- records every change in a RosterJournal, if one has been set
+ * 		- makes a batch of changes all at once or not at all, sorting each changed list only once (see RosterBatch)
+ * 		- assigns staff to every shift that needs them automatically, spreading the hours evenly (see StaffingSolver)
+ * 		- emits Flight Recorder events for every change and query (see RosterMutationEvent and RosterQueryEvent)
+ * 
+ * Thread safety: each day has its own lock, and the registered staff have another lock, so changes to 
+ * different days do not wait for each other. Locks are always taken in the order Monday to Sunday, then staff.
+ * Methods that only read try an optimistic read first, which does not block. If a change happened during the 
+ * read, the result is thrown away and the read is done again while holding the read lock. Reads never change
+ * any of the lists they go through.
  * @author Martin Tiangco
  *
  */
 public class Roster {
 	//fields
 	private String _shopName;
-	private List<Day> _day = new ArrayList<>();
-	private List<StaffWorker> _staffList = new ArrayList<>();
+	private Map<DayOfWeek, Day> _day = new EnumMap<>(DayOfWeek.class);	//in order from Monday to Sunday
+	private List<StaffWorker> _staffList = new ArrayList<>();					//sorted in alphabetical order
+	private final StaffTable _staffTable = new StaffTable();	//id or name key -> StaffWorker, for O(1) lookup
+	private final StampedLock[] _dayLocks = new StampedLock[DayOfWeek.values().length];	//indexed by DayOfWeek ordinal
+	private final StampedLock _staffLock = new StampedLock();				//for _staffList, _staffTable and StaffWorker lists
+	private final AtomicInteger _modCount = new AtomicInteger();			//increased every time the roster is changed
+	private volatile DisplayCache _displayCache;							//last roster displayed
+	private final AtomicReference<RosterSnapshot> _current = new AtomicReference<>();	//latest version of the roster
+	private volatile RosterJournal _journal;								//null if changes are not saved
+	//every shift by Shift.getChronologicalKey. Shifts are only ever added, so it can be read without locks.
+	//Keys are int minutes of the week rather than packed longs, as a week has only 10080 minutes; every key is
+	//taken from WEEK_KEYS, so putting or looking up a shift never boxes a new Integer.
+	private final ConcurrentSkipListMap<Integer, Shift> _weekIndex = new ConcurrentSkipListMap<>();
+	private static final Integer[] WEEK_KEYS = new Integer[DayOfWeek.values().length * TimeOfDay.MINUTES_PER_DAY];
+	static {
+		for (int i = 0; i < WEEK_KEYS.length; i++) {
+			WEEK_KEYS[i] = i;
+		}
+	}
+	
+	/**
+	 * The last roster displayed, and the value of _modCount when it was displayed
+	 */
+	private static class DisplayCache {
+		private final int _modCount;
+		private final String _roster;
+		
+		private DisplayCache(int modCount, String roster) {
+			_modCount = modCount;
+			_roster = roster;
+		}
+	}
 
 	/**
-	 * Creates a roster if a valid name is given, then creates a list of Day objects of the 7 days of the week
+	 * Creates a roster if a valid name is given, then creates a Day object for each of the 7 days of the week
 	 * @param name (must be valid)
 	 * @throws RosterException (if invalid name has been given)
 	 */
@@ -44,13 +110,11 @@ public class Roster {
 			throw new RosterException("RosterException: Please provide a non-empty shop name.");
 		} else {
 			_shopName = name;
-			_day.add(new Day("Monday"));
-			_day.add(new Day("Tuesday"));
-			_day.add(new Day("Wednesday"));
-			_day.add(new Day("Thursday"));
-			_day.add(new Day("Friday"));
-			_day.add(new Day("Saturday"));
-			_day.add(new Day("Sunday"));
+			_current.set(new RosterSnapshot(name, _staffTable));
+			for (DayOfWeek d : DayOfWeek.values()) {
+				_day.put(d, new Day(d, _staffTable));
+				_dayLocks[d.ordinal()] = new StampedLock();
+			}
 		}
 	}
 	
@@ -66,18 +130,33 @@ public class Roster {
 	 * 			- startTime is before endTime
 	 */
 	public void setWorkingHours(String dayOfWeek, String startTime, String endTime) throws RosterException, TimeException {
-		DateTime datetime = new DateTime(startTime, endTime);	//check if time is valid
-		if (datetime.checkIfValidWorkingHours()) {
-			for (Day d : _day) {								//iterate through ArrayList<Day> and find the dayOfWeek
-				if (d.toString().equals(dayOfWeek)) {
-					d.setStartAndEndTimes(startTime, endTime);
+		RosterMutationEvent event = RosterMutationEvent.start();
+		try {
+			DateTime datetime = new DateTime(startTime, endTime);	//check if time is valid
+			if (datetime.checkIfValidWorkingHours()) {
+				Day d = getDay(dayOfWeek);
+				if (d != null) {
+					StampedLock lock = lockFor(d);
+					long stamp = lock.writeLock();
+					try {
+						d.setStartAndEndTimes(datetime.getStartTime(), datetime.getEndTime());
+						publish(v -> v.withWorkingHours(d.getDayOfWeek(), datetime.getStartTime(), datetime.getEndTime()));
+						if (event != null) {
+							event.applied = true;
+						}
+						log(j -> j.logWorkingHours(d.getDayOfWeek(), datetime.getStartTime(), datetime.getEndTime()));
+					} finally {
+						lock.unlockWrite(stamp);
+					}
 					return;
 				}
+				//day is either misspelled or invalid
+				throw new RosterException("RosterException: Please write a valid name of day");
+			} else {
+				throw new TimeException("TimeException: Please provide a valid start and/or end time.");
 			}
-			//day is either misspelled or invalid
-			throw new RosterException("RosterException: Please write a valid name of day");
-		} else {
-			throw new TimeException("TimeException: Please provide a valid start and/or end time.");
+		} finally {
+			RosterMutationEvent.finish(event, "setWorkingHours", dayOfWeek, startTime, endTime, null, null);
 		}
 	}
 	
@@ -89,19 +168,40 @@ public class Roster {
 	 * @param minimumWorkers
 	 * @throws RosterException if provided day is misspelled or invalid
 	 * @throws TimeException if provided time is not valid (see setWorkingHours documentation for more information)
+	 * @throws ShiftOverlapException if the shift overlaps with an existing shift on that day
+	 * @throws NumberFormatException if minimumWorkers is not a number
 	 */
-	public void addShift(String dayOfWeek, String startTime, String endTime, String minimumWorkers) throws RosterException, TimeException {
-		DateTime datetime = new DateTime(startTime, endTime);					//check if time is valid
-		if (datetime.checkIfValidWorkingHours()) {
-			for (Day d : _day) {												//iterate through ArrayList to find the dayOfWeek
-				if (d.toString().equals(dayOfWeek)) {
-					d.addShift(dayOfWeek, startTime, endTime, minimumWorkers);	//adds shift to specific day
+	public void addShift(String dayOfWeek, String startTime, String endTime, String minimumWorkers) 
+			throws RosterException, TimeException, ShiftOverlapException {
+		RosterMutationEvent event = RosterMutationEvent.start();
+		try {
+			DateTime datetime = new DateTime(startTime, endTime);					//check if time is valid
+			if (datetime.checkIfValidWorkingHours()) {
+				Day d = getDay(dayOfWeek);
+				if (d != null) {
+					StampedLock lock = lockFor(d);
+					long stamp = lock.writeLock();
+					try {
+						Shift shift = d.addShift(datetime.getStartTime(), datetime.getEndTime(), minimumWorkers);	//adds shift to specific day
+						if (shift != null) {
+							_weekIndex.put(WEEK_KEYS[shift.getChronologicalKey()], shift);
+							publish(v -> v.withShift(shift));
+							log(j -> j.logShift(shift));
+							if (event != null) {
+								event.applied = true;
+							}
+						}
+					} finally {
+						lock.unlockWrite(stamp);
+					}
 					return;
 				}
+				throw new RosterException("RosterException: Provided dayOfWeek is not valid"); //only reachable if dayOfWeek is not in _day		
+			} else {
+				throw new TimeException("TimeException: Please provide a valid start and/or end time.");
 			}
-			throw new RosterException("RosterException: Provided dayOfWeek is not valid"); //only reachable if dayOfWeek is not in _day		
-		} else {
-			throw new TimeException("TimeException: Please provide a valid start and/or end time.");
+		} finally {
+			RosterMutationEvent.finish(event, "addShift", dayOfWeek, startTime, endTime, null, null);
 		}
 	}
 	
@@ -113,25 +213,109 @@ public class Roster {
 	 * @throws DuplicateStaffException if there is a duplicate staff already in the list (case insensitive)
 	 */
 	public void registerStaff(String givenName, String familyName) throws StaffException, DuplicateStaffException {
-		boolean foundStaffWorker = false;
-		if (!(givenName.isEmpty() || familyName.isEmpty())) {
-			for (StaffWorker staff : _staffList) {
-				if (staff.getFullName().toLowerCase().equals((givenName + " " + familyName).toLowerCase())) {
-					foundStaffWorker = true;	//true if names are equal ignoring case
+		RosterMutationEvent event = RosterMutationEvent.start();
+		try {
+			if (!(givenName.isEmpty() || familyName.isEmpty())) {
+				StaffWorker _staff = new StaffWorker(givenName, familyName);
+				long stamp = _staffLock.writeLock();
+				try {
+					if (_staffTable.find(_staff.getNameKey()) == null) {			//names are equal ignoring case
+						_staffTable.add(_staff);
+						_staffList.add(_staff); 										//add staff to ArrayList<StaffWorker>
+						Collections.sort(_staffList); 									//sorts in alphabetical order
+						publish(v -> v.withStaff(_staffList));
+						log(j -> j.logStaff(_staff));
+						if (event != null) {
+							event.applied = true;
+						}
+					} else {
+						throw new DuplicateStaffException("DuplicateStaffException: Staff already registered.");
+					}
+				} finally {
+					_staffLock.unlockWrite(stamp);
 				}
+			} else {
+				throw new StaffException("StaffException: Given/Family names are empty");
 			}
-			if (foundStaffWorker == false) {
-				StaffWorker _staff = new StaffWorker(givenName, familyName);
-				_staffList.add(_staff); 										//add staff to ArrayList<StaffWorker>
-				Collections.sort(_staffList); 									//sorts in alphabetical order
+		} finally {
+			RosterMutationEvent.finish(event, "registerStaff", null, null, null, givenName, familyName);
+		}
+	}
+	
+	/**
+	 * Registers many staff at once. Each entry is checked against the registered staff and the earlier entries
+	 * in the list, then the new staff are sorted once and merged into the sorted list of staff in a single pass
+	 * (rather than sorting the whole list after every insert like registerStaff does).
+	 * @param names list of {givenName, familyName} pairs
+	 * @return one entry per name, in the same order: null if registered, otherwise the StaffException or
+	 * 			DuplicateStaffException that registerStaff would have thrown
+	 */
+	public List<Exception> registerAllStaff(List<String[]> names) {
+		RosterMutationEvent event = RosterMutationEvent.start();
+		List<Exception> results = new ArrayList<>(names.size());
+		List<StaffWorker> newStaff = new ArrayList<>();
+		long stamp = _staffLock.writeLock();
+		try {
+			registerAllStaff(names, results, newStaff);
+		} finally {
+			_staffLock.unlockWrite(stamp);
+		}
+		if (event != null) {
+			event.workers = names.size();
+			event.applied = !newStaff.isEmpty();
+		}
+		RosterMutationEvent.finish(event, "registerAllStaff", null, null, null, null, null);
+		return results;
+	}
+	
+	private void registerAllStaff(List<String[]> names, List<Exception> results, List<StaffWorker> newStaff) {
+		for (String[] name : names) {
+			if (name == null || name.length != 2 || name[0] == null || name[1] == null 
+					|| name[0].isEmpty() || name[1].isEmpty()) {
+				results.add(new StaffException("StaffException: Given/Family names are empty"));
+				continue;
+			}
+			StaffWorker staff = new StaffWorker(name[0], name[1]);
+			if (_staffTable.find(staff.getNameKey()) != null) {			//already registered, or earlier in this batch
+				results.add(new DuplicateStaffException("DuplicateStaffException: Staff already registered."));
 			} else {
-				throw new DuplicateStaffException("DuplicateStaffException: Staff already registered.");
+				_staffTable.add(staff);
+				newStaff.add(staff);
+				results.add(null);
+			}
+		}
+		if (!newStaff.isEmpty()) {
+			Collections.sort(newStaff);									//sort only the new staff
+			_staffList = mergeSortedStaff(_staffList, newStaff);
+			publish(v -> v.withStaff(_staffList));
+			for (StaffWorker staff : newStaff) {
+				log(j -> j.logStaff(staff));
 			}
-		} else {
-			throw new StaffException("StaffException: Given/Family names are empty");
 		}
 	}
 	
+	/**
+	 * Merges two lists of staff that are each in alphabetical order into a new list in alphabetical order
+	 * @param first
+	 * @param second
+	 * @return merged list
+	 */
+	private static List<StaffWorker> mergeSortedStaff(List<StaffWorker> first, List<StaffWorker> second) {
+		List<StaffWorker> merged = new ArrayList<>(first.size() + second.size());
+		int i = 0;
+		int j = 0;
+		while (i < first.size() && j < second.size()) {
+			if (first.get(i).compareTo(second.get(j)) <= 0) {
+				merged.add(first.get(i++));
+			} else {
+				merged.add(second.get(j++));
+			}
+		}
+		merged.addAll(first.subList(i, first.size()));
+		merged.addAll(second.subList(j, second.size()));
+		return merged;
+	}
+	
 	/**
 	 * Assigns a staff member to specified time 
 	 * @param dayOfWeek must match one of the 7 days
@@ -139,32 +323,192 @@ public class Roster {
 	 * @param endTime in format hh:mm
 	 * @param givenName 
 	 * @param familyName
-	 * @param isManager true if manager, false otherwise
+	 * @param isManager true if manager, false otherwise. A new manager replaces the shift's manager, who is
+	 * 			unassigned from it.
 	 * @return empty string if successful
 	 * @throws ShiftException if specified shift is not found in the list (hasn't been previously created)
+	 * @throws StaffConflictException if the staff member is already assigned at any time during the shift
 	 */
 	public String assignStaff(String dayOfWeek, String startTime, String endTime, String givenName, 
-			String familyName, boolean isManager) throws ShiftException {
-		for (Day d : _day) {									//iterate through day ArrayList and find dayOfWeek
-			if (d.toString().equals(dayOfWeek)) {
-				//match startTime and endTime with existing shift
-				//returns null if no shift is found
-				Shift existingShift = d.getExistingShift(startTime, endTime);
-				if (existingShift != null) {
-					for (StaffWorker staff : _staffList) {		//iterate through staff members to find wanted staff member
-						if (staff.getFullName().toLowerCase().equals((givenName + " " + familyName).toLowerCase())) {
-							staff.assignShift(existingShift, isManager);		//assign shift to either manager or worker
-							if (isManager == false) {
-								existingShift.addStaffMemberToList(staff);		//add to list of workers for that shift
+			String familyName, boolean isManager) throws ShiftException, StaffConflictException {
+		RosterMutationEvent event = RosterMutationEvent.start();
+		try {
+			Day d = getDay(dayOfWeek);
+			if (d != null) {
+				StampedLock lock = lockFor(d);
+				long dayStamp = lock.writeLock();
+				try {
+					//match startTime and endTime with existing shift
+					//returns null if no shift is found
+					Shift existingShift = d.getExistingShift(TimeOfDay.parse(startTime), TimeOfDay.parse(endTime));
+					if (existingShift != null) {
+						long staffStamp = _staffLock.writeLock();			//StaffWorker's lists of shifts are changed
+						try {
+							StaffWorker staff = findStaff(givenName + " " + familyName);	//null if staff member is not registered
+							if (staff != null) {
+								staff.assignShift(existingShift, isManager);		//assign shift to either manager or worker
+								if (isManager == false) {
+									existingShift.addStaffMemberToList(staff);		//add to list of workers for that shift
+									d.changeWorkers(existingShift, 1);
+								}
+								d.updateStaffingStatus(existingShift);
+								publish(v -> v.withShift(existingShift));
+								log(j -> j.logAssignment(existingShift, staff, isManager));
+								if (event != null) {
+									event.workers = existingShift.getNumberOfWorkers();
+									event.applied = true;
+								}
 							}
+						} finally {
+							_staffLock.unlockWrite(staffStamp);
 						}
+					} else {
+						throw new ShiftException("ShiftException: Specified shift is not found in list of shifts.");
 					}
-				} else {
+				} finally {
+					lock.unlockWrite(dayStamp);
+				}
+			}
+			return "";
+		} finally {
+			RosterMutationEvent.finish(event, "assignStaff", dayOfWeek, startTime, endTime, givenName, familyName);
+		}
+	}
+	
+	/**
+	 * Removes a staff member from a shift they are assigned to, as either worker or manager
+	 * @param dayOfWeek must match one of the 7 days
+	 * @param startTime in format hh:mm
+	 * @param endTime in format hh:mm
+	 * @param givenName
+	 * @param familyName
+	 * @return false if the staff member is not registered or not assigned to the shift
+	 * @throws RosterException if name of day is invalid
+	 * @throws ShiftException if specified shift is not found in the list
+	 */
+	public boolean unassignStaff(String dayOfWeek, String startTime, String endTime, String givenName,
+			String familyName) throws RosterException, ShiftException {
+		RosterMutationEvent event = RosterMutationEvent.start();
+		try {
+			Day d = getDay(dayOfWeek);
+			if (d == null) {
+				throw new RosterException("RosterException: Please write a valid name of day");
+			}
+			StampedLock lock = lockFor(d);
+			long dayStamp = lock.writeLock();
+			try {
+				Shift existingShift = d.getExistingShift(TimeOfDay.parse(startTime), TimeOfDay.parse(endTime));
+				if (existingShift == null) {
 					throw new ShiftException("ShiftException: Specified shift is not found in list of shifts.");
 				}
+				long staffStamp = _staffLock.writeLock();
+				try {
+					StaffWorker staff = findStaff(givenName + " " + familyName);
+					int workers = existingShift.getNumberOfWorkers();
+					if (staff == null || !staff.unassignShift(existingShift)) {	//also removes them from the shift
+						return false;
+					}
+					d.changeWorkers(existingShift, existingShift.getNumberOfWorkers() - workers);	//-1 if they were a worker
+					d.updateStaffingStatus(existingShift);
+					publish(v -> v.withShift(existingShift));
+					log(j -> j.logUnassignment(existingShift, staff));
+					if (event != null) {
+						event.workers = existingShift.getNumberOfWorkers();
+						event.applied = true;
+					}
+					return true;
+				} finally {
+					_staffLock.unlockWrite(staffStamp);
+				}
+			} finally {
+				lock.unlockWrite(dayStamp);
+			}
+		} finally {
+			RosterMutationEvent.finish(event, "unassignStaff", dayOfWeek, startTime, endTime, givenName, familyName);
+		}
+	}
+	
+	/**
+	 * Makes a batch of changes all at once, or not at all. Every command is checked first (see RosterBatch), while
+	 * holding every lock, so no other change can happen in between. If they are all valid, every change is made
+	 * and each list that changed is sorted once; otherwise nothing is changed.
+	 * @param commands
+	 * @return one entry per command, in the same order: null if valid, otherwise the exception the method for 
+	 * 			that command would have thrown. The changes were made only if every entry is null.
+	 */
+	public List<Exception> applyBatch(List<RosterCommand> commands) {
+		RosterMutationEvent event = RosterMutationEvent.start();
+		if (event != null) {
+			event.workers = commands.size();
+		}
+		long[] stamps = writeLockAll();
+		try {
+			List<Exception> errors = applyBatchLocked(commands);
+			if (event != null) {
+				event.applied = Collections.frequency(errors, null) == errors.size();	//every command was valid
+			}
+			return errors;
+		} finally {
+			unlockWriteAll(stamps);
+			RosterMutationEvent.finish(event, "applyBatch", null, null, null, null, null);
+		}
+	}
+	
+	/**
+	 * Makes a batch of changes, while the caller holds every write lock (see applyBatch)
+	 * @param commands
+	 * @return one entry per command, null if valid
+	 */
+	private List<Exception> applyBatchLocked(List<RosterCommand> commands) {
+		RosterBatch batch = new RosterBatch(this, commands);
+		if (batch.validate()) {
+			batch.apply(_journal);
+			if (batch.hasNewStaff()) {
+				Collections.sort(_staffList);						//new staff were added to the end
+			}
+			publish(v -> {
+				RosterSnapshot next = v;
+				for (DayOfWeek d : batch.getChangedDays()) {
+					next = next.withDay(_day.get(d));
+				}
+				return batch.hasNewStaff() ? next.withStaff(_staffList) : next;
+			});
+		}
+		return batch.getErrors();
+	}
+	
+	/**
+	 * Assigns staff so that every shift has a manager and at least its minimum number of workers, spreading the
+	 * hours evenly across the registered staff (see StaffingSolver). Days are filled one after another, in order,
+	 * so the same roster always gets the same assignments. Holds every write lock, so the assignments are made
+	 * as one batch.
+	 * @return the assignments made, for each day in order and each shift in chronological order
+	 * @throws IllegalStateException if the solver gave an assignment that is not valid. No assignments are made.
+	 */
+	public List<RosterCommand> autoFill() {
+		RosterMutationEvent event = RosterMutationEvent.start();
+		long[] stamps = writeLockAll();
+		try {
+			List<RosterCommand> commands = new StaffingSolver(new ArrayList<>(_day.values()), _staffList, _staffTable)
+					.solve();
+			if (!commands.isEmpty()) {
+				List<Exception> errors = applyBatchLocked(commands);	//the roster cannot change meanwhile
+				for (int i = 0; i < errors.size(); i++) {
+					if (errors.get(i) != null) {						//solver and roster disagree, nothing was made
+						throw new IllegalStateException("autoFill gave an invalid assignment: " + commands.get(i),
+								errors.get(i));
+					}
+				}
+			}
+			if (event != null) {
+				event.workers = commands.size();
+				event.applied = !commands.isEmpty();
 			}
+			return commands;
+		} finally {
+			unlockWriteAll(stamps);
+			RosterMutationEvent.finish(event, "autoFill", null, null, null, null, null);
 		}
-		return "";
 	}
 	
 	/**
@@ -172,11 +516,197 @@ public class Roster {
 	 * @return list of registered staff
 	 */
 	public List<String> getRegisteredStaff() {	//loop through list<StaffWorker> and convert StaffWorkers to list<String>
-		List<String> _staffNamesString = new ArrayList<>();
-		for (StaffWorker s : _staffList) {
-			_staffNamesString.add(s.getFullName()); 
+		RosterQueryEvent event = RosterQueryEvent.start();
+		List<String> result = read(_staffLock, () -> {
+			if (event != null) {
+				event.staffScanned = _staffList.size();
+			}
+			List<String> _staffNamesString = new ArrayList<>();
+			for (StaffWorker s : _staffList) {
+				_staffNamesString.add(s.getFullName()); 
+			}
+			return _staffNamesString;
+		});
+		RosterQueryEvent.finish(event, "getRegisteredStaff", null, result.size());
+		return result;
+	}
+	
+	/**
+	 * Retrieves the staff that are not assigned to any shift during the given time, using each staff member's
+	 * bitmaps of assigned minutes (see StaffWorker.isFree)
+	 * @param dayOfWeek must match one of the 7 days
+	 * @param startTime in format hh:mm
+	 * @param endTime in format hh:mm
+	 * @return names of available staff in format "Givenname FamilyName", in alphabetical order
+	 * @throws RosterException if name of day is invalid
+	 * @throws TimeException if time is not valid
+	 */
+	public List<String> getAvailableStaff(String dayOfWeek, String startTime, String endTime) 
+			throws RosterException, TimeException {
+		DateTime datetime = new DateTime(startTime, endTime);
+		if (!datetime.checkIfValidWorkingHours()) {
+			throw new TimeException("TimeException: Please provide a valid start and/or end time.");
+		}
+		Day d = getDay(dayOfWeek);
+		if (d == null) {
+			throw new RosterException("RosterException: Please write a valid name of day");
+		}
+		RosterQueryEvent event = RosterQueryEvent.start();
+		int start = datetime.getStartTime().getMinute();
+		int end = datetime.getEndTime().getMinute();
+		List<String> result = read(_staffLock, () -> {
+			if (event != null) {
+				event.staffScanned = _staffList.size();
+			}
+			List<String> available = new ArrayList<>();
+			for (StaffWorker s : _staffList) {
+				if (s.isFree(d.getDayOfWeek(), start, end)) {
+					available.add(s.getFullName());
+				}
+			}
+			return available;
+		});
+		RosterQueryEvent.finish(event, "getAvailableStaff", dayOfWeek, result.size());
+		return result;
+	}
+	
+	/**
+	 * Retrieves how the working hours are covered by shifts and workers, as intervals in which the number of 
+	 * workers required and assigned does not change (see Day.getCoverage)
+	 * @param dayOfWeek must match one of the 7 days, or null for the whole week
+	 * @return intervals in chronological order
+	 * @throws RosterException if name of day is invalid
+	 */
+	public List<String> getCoverage(String dayOfWeek) throws RosterException {
+		return getCoverage("getCoverage", dayOfWeek, false);
+	}
+	
+	/**
+	 * Retrieves the parts of the working hours that are not covered by a shift, or have fewer workers assigned 
+	 * than required, in the same format as getCoverage
+	 * @param dayOfWeek must match one of the 7 days, or null for the whole week
+	 * @return intervals in chronological order
+	 * @throws RosterException if name of day is invalid
+	 */
+	public List<String> getCoverageGaps(String dayOfWeek) throws RosterException {
+		return getCoverage("getCoverageGaps", dayOfWeek, true);
+	}
+	
+	private List<String> getCoverage(String operation, String dayOfWeek, boolean gapsOnly) throws RosterException {
+		Collection<Day> days = _day.values();
+		if (dayOfWeek != null) {
+			Day d = getDay(dayOfWeek);
+			if (d == null) {
+				throw new RosterException("RosterException: Please write a valid name of day");
+			}
+			days = Collections.singletonList(d);
+		}
+		RosterQueryEvent event = RosterQueryEvent.start();
+		List<String> intervals = new ArrayList<>();
+		for (Day d : days) {
+			intervals.addAll(read(lockFor(d), () -> d.getCoverage(gapsOnly)));
+		}
+		RosterQueryEvent.finish(event, operation, dayOfWeek, intervals.size());
+		return intervals;
+	}
+	
+	/**
+	 * Retrieves the shifts that are at least partly within a range of the week, e.g. from Tuesday 10:00 to
+	 * Thursday 14:00, using the week index
+	 * @param fromDay must match one of the 7 days
+	 * @param fromTime in format hh:mm
+	 * @param toDay must match one of the 7 days
+	 * @param toTime in format hh:mm (not included)
+	 * @return shifts in format dayOfWeek[startTime-endTime], in chronological order
+	 * @throws RosterException if name of either day is invalid
+	 * @throws TimeException if either time is not valid, or the range does not end after it starts
+	 */
+	public List<String> getShiftsBetween(String fromDay, String fromTime, String toDay, String toTime) 
+			throws RosterException, TimeException {
+		int from = weekMinute(fromDay, fromTime);
+		int to = weekMinute(toDay, toTime);
+		if (from >= to) {
+			throw new TimeException("TimeException: Please provide a valid start and/or end time.");
+		}
+		RosterQueryEvent event = RosterQueryEvent.start();
+		List<String> shifts = new ArrayList<>();
+		Map.Entry<Integer, Shift> before = _weekIndex.lowerEntry(WEEK_KEYS[from]);	//only this shift can start before the range
+		if (before != null && before.getValue().getChronologicalEndKey() > from) {
+			shifts.add(before.getValue().toString());
+		}
+		for (Shift s : _weekIndex.subMap(WEEK_KEYS[from], WEEK_KEYS[to]).values()) {
+			shifts.add(s.toString());
+		}
+		if (event != null) {
+			event.shiftsScanned = shifts.size();
+		}
+		RosterQueryEvent.finish(event, "getShiftsBetween", fromDay, shifts.size());
+		return shifts;
+	}
+	
+	/**
+	 * Retrieves the shift in progress at the given time (if there is one) and the shifts after it, going on to 
+	 * next week's shifts after Sunday, using the week index
+	 * @param dayOfWeek must match one of the 7 days
+	 * @param time in format hh:mm
+	 * @param count maximum number of shifts to retrieve
+	 * @return each shift with its manager and workers, in the same format as getRosterForDay
+	 * @throws RosterException if name of day is invalid
+	 * @throws TimeException if time is not valid
+	 */
+	public List<String> getNextShifts(String dayOfWeek, String time, int count) throws RosterException, TimeException {
+		int now = weekMinute(dayOfWeek, time);
+		RosterQueryEvent event = RosterQueryEvent.start();
+		List<String> shifts = new ArrayList<>();
+		Map.Entry<Integer, Shift> floor = _weekIndex.floorEntry(WEEK_KEYS[now]);
+		Shift inProgress = null;
+		if (count > 0 && floor != null && floor.getValue().getChronologicalEndKey() > now) {
+			inProgress = floor.getValue();
+			shifts.add(rosterLine(inProgress));
+		}
+		for (Shift s : _weekIndex.tailMap(WEEK_KEYS[now], false).values()) {		//later this week
+			if (shifts.size() >= count) {
+				break;
+			}
+			shifts.add(rosterLine(s));
+		}
+		for (Shift s : _weekIndex.headMap(WEEK_KEYS[now], true).values()) {		//next week
+			if (shifts.size() >= count) {
+				break;
+			}
+			if (s != inProgress) {
+				shifts.add(rosterLine(s));
+			}
+		}
+		if (event != null) {
+			event.shiftsScanned = shifts.size();
 		}
-		return _staffNamesString;
+		RosterQueryEvent.finish(event, "getNextShifts", dayOfWeek, shifts.size());
+		return shifts;
+	}
+	
+	/**
+	 * @return the line describing the shift in a day's roster, read while no change is being made to its day
+	 */
+	private String rosterLine(Shift shift) {
+		return read(_dayLocks[shift.getDayOfWeek().ordinal()], shift::toRosterLine);
+	}
+	
+	/**
+	 * Converts a day and time to the number of minutes from the start of the week (see Shift.getChronologicalKey)
+	 * @throws RosterException if name of day is invalid
+	 * @throws TimeException if time is not valid
+	 */
+	private static int weekMinute(String dayOfWeek, String time) throws RosterException, TimeException {
+		DayOfWeek day = DayOfWeek.fromString(dayOfWeek);
+		if (day == null) {
+			throw new RosterException("RosterException: Please write a valid name of day");
+		}
+		TimeOfDay t = TimeOfDay.parse(time);
+		if (t == null) {
+			throw new TimeException("TimeException: Please provide a valid start and/or end time.");
+		}
+		return day.ordinal() * TimeOfDay.MINUTES_PER_DAY + t.getMinute();
 	}
 	
 	/**
@@ -184,35 +714,42 @@ public class Roster {
 	 * @return list of unassigned staff
 	 */
 	public List<String> getUnassignedStaff() {
-		List<String> unassignedStaff = new ArrayList<String>();
-		for (StaffWorker s : _staffList) {			    //iterate through all StaffWorkers and find those without shifts
-			if (s.getShift().isEmpty()) {
-				unassignedStaff.add(s.getFullName());	//add those to the unassignedStaff ArrayList
+		RosterQueryEvent event = RosterQueryEvent.start();
+		List<String> result = read(_staffLock, () -> {
+			if (event != null) {
+				event.staffScanned = _staffList.size();
 			}
-		}
-		return unassignedStaff;
+			List<String> unassignedStaff = new ArrayList<String>();
+			for (StaffWorker s : _staffList) {			    //iterate through all StaffWorkers and find those without shifts
+				if (!s.hasShifts()) {
+					unassignedStaff.add(s.getFullName());	//add those to the unassignedStaff ArrayList
+				}
+			}
+			return unassignedStaff;
+		});
+		RosterQueryEvent.finish(event, "getUnassignedStaff", null, result.size());
+		return result;
 	}
 	
 	/**
 	 * Retrieves the roster for a specified worker (NOT manager)
 	 * @param workerName in format "Givenname FamilyName"
-	 * @return list of shifts of a worker in String format
+	 * @return list of shifts of a worker in String format (kept by StaffWorker, so it cannot be modified)
 	 */
 	public List<String> getRosterForWorker(String workerName) {
-		List<String> shiftListString = new ArrayList<>();			//create new List<String>
-		for (StaffWorker s : _staffList) {							//iterate through StaffWorkers ArrayList
-			if (s.getFullName().toLowerCase().equals(workerName.toLowerCase())) {
-				List<Shift> shiftList = s.getShift(false);	//false refers to boolean isManager
-				if (!(shiftList.isEmpty())) {
-					Collections.sort(shiftList);					//sorts List<Shift> in chronological order
-					shiftListString.add(s.formatName());	//1st entry is the worker name in format "FamilyName, GivenName"
-					for (Shift shift : shiftList) { 				//convert List<Shift> to List<String>
-						shiftListString.add(shift.toString());
-					}
-				}
+		RosterQueryEvent event = RosterQueryEvent.start();
+		List<String> result = read(_staffLock, () -> {
+			StaffWorker s = findStaff(workerName);
+			if (s == null) {
+				return Collections.<String>emptyList();		//worker is not found
 			}
-		}
-		return shiftListString;		//will return an empty list if worker is not found or if there are no shifts
+			if (event != null) {
+				event.staffScanned = 1;
+			}
+			return s.getRoster(false);		//false refers to boolean isManager, empty if there are no shifts
+		});
+		RosterQueryEvent.finish(event, "getRosterForWorker", workerName, result.size());
+		return result;
 	}
 	
 	/**
@@ -226,62 +763,50 @@ public class Roster {
 	 * If there is no shifts on that day, return an empty list 
 	 */
 	public List<String> getRosterForDay(String dayOfWeek) {
-		List<String> listShiftString = new ArrayList<>();
-		List<Shift> listShift = new ArrayList<>();
-		for (Day d : _day) {
-			if (d.toString().equals(dayOfWeek)) {						//find dayOfWeek in the list
-				listShift = d.getListOfShifts();						//retrieves List<Shift> of specified day	
-				if (!(listShift.isEmpty())) {							//convert List<Shift> to List<String>
-					listShiftString.add(_shopName);						//1st entry into list - shop name
-					listShiftString.add(d + " " + d.getStartWorkingHours() + "-" + d.getEndWorkingHours()); //2nd entry - working hours
-					for (Shift s : listShift) {
-						if (s.getManager() == null) {						//no manager
-							if (s.getStaffWorkerList().isEmpty()) {			//no manager and no staff workers
-								listShiftString.add(s.toString() + 
-										" [No manager assigned] " + "[No workers assigned]");
-							} else {										//no manager and has staff workers
-								
-								listShiftString.add(s.toString() + " [No manager assigned] " + 
-										s.getStaffWorkerListString()); 
-							}
-						} else {											//manager
-							if (s.getStaffWorkerList().isEmpty()) {			//manager and no staff workers
-								String managerFormat = s.getManagerFormatted();
-								listShiftString.add(s.toString() + " Manager:" + managerFormat + " " + 
-										"[No workers assigned]"); 	
-							} else {										//manager and staff workers
-								String managerFormat = s.getManagerFormatted();
-								listShiftString.add(s.toString() + " Manager:" + managerFormat + " " + 
-										s.getStaffWorkerListString());
-							}
-						}
-					}
-				} 
-			}
+		RosterQueryEvent event = RosterQueryEvent.start();
+		Day d = getDay(dayOfWeek);
+		if (d == null) {
+			RosterQueryEvent.finish(event, "getRosterForDay", dayOfWeek, 0);
+			return new ArrayList<>();
 		}
-		return listShiftString;		//if shift list is empty, returns an empty list.
+		List<String> result = read(lockFor(d), () -> {
+			List<String> listShiftString = new ArrayList<>();
+			List<Shift> listShift = d.getListOfShifts();						//retrieves List<Shift> of specified day	
+			if (event != null) {
+				event.shiftsScanned = listShift.size();
+			}
+			if (!(listShift.isEmpty())) {							//convert List<Shift> to List<String>
+				listShiftString.add(_shopName);						//1st entry into list - shop name
+				listShiftString.add(d + " " + d.getStartWorkingHours() + "-" + d.getEndWorkingHours()); //2nd entry - working hours
+				for (Shift s : listShift) {
+					listShiftString.add(s.toRosterLine());			//shift, manager and list of workers
+				}
+			}
+			return listShiftString;		//if shift list is empty, returns an empty list.
+		});
+		RosterQueryEvent.finish(event, "getRosterForDay", dayOfWeek, result.size());
+		return result;
 	}
 	
 	/**
 	 * Retrieves the list of shifts that are managed by the staff employee given by parameter
 	 * @param managerName 
-	 * @return list of shifts managed by employee in String format
+	 * @return list of shifts managed by employee in String format (kept by StaffWorker, so it cannot be modified)
 	 */
 	public List<String> getShiftsManagedBy(String managerName) {
-		List<String> managerShiftsString = new ArrayList<>();		//new List<String> to return later
-		List<Shift> managerShifts = new ArrayList<>();
-		for (StaffWorker staff : _staffList) {
-			if (staff.getFullName().toLowerCase().equals(managerName.toLowerCase())) {
-				managerShifts = staff.getShift(true);	//true refers to boolean IsManager
-				if (!(managerShifts.isEmpty())) {
-					managerShiftsString.add(staff.formatName());	//1st entry is name of manager with format "FamilyName, GivenName"
-				}
+		RosterQueryEvent event = RosterQueryEvent.start();
+		List<String> result = read(_staffLock, () -> {
+			StaffWorker staff = findStaff(managerName);
+			if (staff == null) {
+				return Collections.<String>emptyList();
 			}
-		}
-		for (Shift s : managerShifts) {
-			managerShiftsString.add(s.toString());	//loop through all shifts where staff is manager, then add to String
-		}
-		return managerShiftsString;
+			if (event != null) {
+				event.staffScanned = 1;
+			}
+			return staff.getRoster(true);	//true refers to boolean IsManager
+		});
+		RosterQueryEvent.finish(event, "getShiftsManagedBy", managerName, result.size());
+		return result;
 	}
 	
 	/**
@@ -289,45 +814,375 @@ public class Roster {
 	 * @return shifts no managers in String format
 	 */
 	public List<String> shiftsWithoutManagers() {
+		RosterQueryEvent event = RosterQueryEvent.start();
 		List<String> noManagerString = new ArrayList<>();
-		for (Day d : _day) {						//iterate through days and collect shifts
-			List<Shift> listOfShift = d.getListOfShifts();
-			for (Shift shift : listOfShift) {		//iterate through List<Shift> and find those without managers
-				if (shift.getManager() == null) {
-					noManagerString.add(shift.toString());	//add shift to List<String>
-				}
-			}
+		for (Day d : _day.values()) {				//each day is read separately, in order
+			noManagerString.addAll(read(lockFor(d), () -> toStringList(d.getShiftsWithoutManager())));
+		}
+		if (event != null) {
+			event.shiftsScanned = noManagerString.size();				//only shifts in the list are gone through
 		}
+		RosterQueryEvent.finish(event, "shiftsWithoutManagers", null, noManagerString.size());
 		return noManagerString;
 	}
 	
 	/**
-	 * Retrieves the under or overstaffed shifts based on which of the shifts you wish to retrieve
-	 * @param underOrOver - either "understaffed" or "overstaffed"
-	 * @return list of shifts that are understaffed or overstaffed 
+	 * Retrieves the shifts that have fewer workers than the minimum required
+	 * @return list of understaffed shifts in String format
 	 */
-	public List<String> getUnderOrOverStaffedShifts(String underOrOver) {
+	public List<String> understaffedShifts() {
+		RosterQueryEvent event = RosterQueryEvent.start();
 		List<String> shiftListString = new ArrayList<>();
-		for (Day d: _day) {
-			List<Shift> listOfShift = d.getListOfShifts();
+		for (Day d : _day.values()) {
+			shiftListString.addAll(read(lockFor(d), () -> toStringList(d.getUnderstaffedShifts())));
+		}
+		if (event != null) {
+			event.shiftsScanned = shiftListString.size();				//only shifts in the list are gone through
+		}
+		RosterQueryEvent.finish(event, "understaffedShifts", null, shiftListString.size());
+		return shiftListString;
+	}
+	
+	/**
+	 * Retrieves the shifts that have more workers than the minimum required
+	 * @return list of overstaffed shifts in String format
+	 */
+	public List<String> overstaffedShifts() {
+		RosterQueryEvent event = RosterQueryEvent.start();
+		List<String> shiftListString = new ArrayList<>();
+		for (Day d : _day.values()) {
+			shiftListString.addAll(read(lockFor(d), () -> toStringList(d.getOverstaffedShifts())));
+		}
+		if (event != null) {
+			event.shiftsScanned = shiftListString.size();				//only shifts in the list are gone through
+		}
+		RosterQueryEvent.finish(event, "overstaffedShifts", null, shiftListString.size());
+		return shiftListString;
+	}
+	
+	/**
+	 * Retrieves the roster for the whole week as a String (see displayRoster(Appendable) for the format).
+	 * The String is kept and returned again until the roster is next changed.
+	 * @return formatted roster
+	 */
+	public String displayRoster() {
+		RosterQueryEvent event = RosterQueryEvent.start();
+		DisplayCache cache = _displayCache;
+		int modCount = _modCount.get();					//read before displaying, so a change during display is not missed
+		if (cache == null || cache._modCount != modCount) {
+			StringBuilder out = new StringBuilder();
+			try {
+				displayRoster(out);
+			} catch (IOException e) {			//not possible when writing to a StringBuilder
+				throw new UncheckedIOException(e);
+			}
+			cache = new DisplayCache(modCount, out.toString());
+			_displayCache = cache;
+		}
+		RosterQueryEvent.finish(event, "displayRoster", null, cache._roster.length());
+		return cache._roster;
+	}
+	
+	/**
+	 * Writes the roster for the whole week to out, one line at a time, so a large roster does not have to be
+	 * held in memory. The format is:
+	 * 			- first line is the shop's name
+	 * 			- then for each day with working hours set, in order from Monday to Sunday:
+	 * 				- the working hours of the day, in format dayOfWeek startTime-endTime
+	 * 				- one line for each shift, in the same format as getRosterForDay
+	 * The roster is written from the current RosterSnapshot, without holding any lock, so a slow out (e.g. a
+	 * socket) never holds up changes to the roster.
+	 * @param out where the roster is written to
+	 * @throws IOException if out cannot be written to
+	 */
+	public void displayRoster(Appendable out) throws IOException {
+		_current.get().displayRoster(out);
+	}
+	
+	/**
+	 * Reports the issues with the roster. The days, shifts and staff are each gone through once, and every
+	 * kind of issue is checked for as they are gone through (see RosterIssues for the kinds of issues).
+	 * All of the read locks are held while reporting, so the report is for a single version of the roster.
+	 * @return the issues, one per line grouped by kind of issue, or an empty string if there are no issues
+	 */
+	public String reportRosterIssues() {
+		RosterQueryEvent event = RosterQueryEvent.start();
+		String issues;
+		long[] stamps = readLockAll();
+		try {
+			issues = reportRosterIssuesLocked();
+			if (event != null) {
+				event.staffScanned = _staffList.size();
+			}
+		} finally {
+			unlockReadAll(stamps);
+		}
+		RosterQueryEvent.finish(event, "reportRosterIssues", null, issues.length());
+		return issues;
+	}
+	
+	private String reportRosterIssuesLocked() {
+		RosterIssues issues = new RosterIssues();
+		for (Day d : _day.values()) {
+			Collection<Shift> listOfShift = d.getListOfShifts();
+			if (d.hasWorkingHours() && listOfShift.isEmpty()) {
+				issues.addDayWithoutShifts(d);
+				continue;
+			}
+			//shifts are in chronological order, so a gap is anywhere a shift starts after the previous one ends
+			int covered = d.hasWorkingHours() ? d.getStartWorkingHours().getMinute() : 0;
 			for (Shift shift : listOfShift) {
-				switch (underOrOver) {
-				case "understaffed" :
-					if (shift.getStaffWorkerList().size() < shift.getMinimumWorkers()) {
-						shiftListString.add(shift.toString());		//add understaffed shift to List<String>
-					}
-					break;
-				case "overstaffed" :
-					if (shift.getStaffWorkerList().size() > shift.getMinimumWorkers()) {
-						shiftListString.add(shift.toString());		//add overstaffed shift to List<String>
+				int workers = shift.getNumberOfWorkers();
+				if (workers < shift.getMinimumWorkers()) {
+					issues.addUnderstaffed(shift);
+				} else if (workers > shift.getMinimumWorkers()) {
+					issues.addOverstaffed(shift);
+				}
+				if (shift.getManagerStaff() == null) {
+					issues.addWithoutManager(shift);
+				}
+				if (d.hasWorkingHours()) {
+					int gapEnd = Math.min(shift.getStartMinute(), d.getEndWorkingHours().getMinute());
+					if (gapEnd > covered) {
+						issues.addCoverageGap(d, covered, gapEnd);
 					}
-					break;
+					covered = Math.max(covered, shift.getEndMinute());
 				}
 			}
+			if (d.hasWorkingHours() && covered < d.getEndWorkingHours().getMinute()) {
+				issues.addCoverageGap(d, covered, d.getEndWorkingHours().getMinute());
+			}
+		}
+		for (StaffWorker s : _staffList) {
+			if (!s.hasShifts()) {
+				issues.addUnassignedStaff(s);
+			}
+		}
+		return issues.toString();
+	}
+	
+	/**
+	 * Retrieves the current version of the roster. The snapshot never changes, so it can be read from any thread
+	 * without locks, and is not affected by later changes to this roster. Nothing is copied to get it.
+	 * @return current version of the roster
+	 */
+	public RosterSnapshot snapshot() {
+		return _current.get();
+	}
+	
+	/**
+	 * Records a change to the roster: publishes the next version of the roster and increases _modCount.
+	 * Must be called while holding the write lock for the part of the roster that changed.
+	 * @param change makes the next version from the current one, by copying only the part that changed
+	 */
+	private void publish(UnaryOperator<RosterSnapshot> change) {
+		_current.updateAndGet(change);		//retried if another day or the staff was published at the same time
+		_modCount.incrementAndGet();
+	}
+	
+	/**
+	 * Sets the journal that every change to this roster is recorded in
+	 * @param journal or null to stop recording changes
+	 */
+	void setJournal(RosterJournal journal) {
+		_journal = journal;
+	}
+	
+	/**
+	 * Stops recording changes to this roster, once every change being made now has been recorded. Used when the
+	 * roster is replaced, so that no change to it is recorded after the record that starts the new roster.
+	 */
+	void detachJournal() {
+		long[] stamps = writeLockAll();			//changes are recorded while holding a write lock
+		try {
+			_journal = null;
+		} finally {
+			unlockWriteAll(stamps);
+		}
+	}
+	
+	/**
+	 * Records a change in the journal, if there is one. Must be called while holding the write lock for the part
+	 * of the roster that changed, so that changes are recorded in the same order as they happen.
+	 * @param record
+	 */
+	private void log(Consumer<RosterJournal> record) {
+		RosterJournal journal = _journal;
+		if (journal != null) {
+			record.accept(journal);
+		}
+	}
+	
+	/**
+	 * Converts shifts to List<String> in format dayOfWeek[startTime-endTime]
+	 * @param shifts
+	 * @return list of shifts in String format
+	 */
+	private static List<String> toStringList(List<Shift> shifts) {
+		List<String> shiftListString = new ArrayList<>(shifts.size());
+		for (Shift shift : shifts) {
+			shiftListString.add(shift.toString());
 		}
 		return shiftListString;
 	}
 	
+	/**
+	 * Reads part of the roster with an optimistic read, which does not block. If the lock was written to during the
+	 * read, the lists may have changed while they were gone through (which can also cause an exception), so the 
+	 * result is thrown away and the read is done again while holding the read lock.
+	 * The reader must not change anything.
+	 * @param lock the lock for the part of the roster being read
+	 * @param reader
+	 * @return the result of the reader
+	 */
+	private static <T> T read(StampedLock lock, Supplier<T> reader) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0L) {
+			try {
+				T result = reader.get();
+				if (lock.validate(stamp)) {
+					return result;
+				}
+			} catch (RuntimeException e) {
+				//a change happened during the read, so read again below
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return reader.get();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Takes every read lock, in the order Monday to Sunday, then staff
+	 * @return stamps, indexed by DayOfWeek ordinal, with the staff stamp last
+	 */
+	private long[] readLockAll() {
+		long[] stamps = new long[_dayLocks.length + 1];
+		for (int i = 0; i < _dayLocks.length; i++) {
+			stamps[i] = _dayLocks[i].readLock();
+		}
+		stamps[_dayLocks.length] = _staffLock.readLock();
+		return stamps;
+	}
+	
+	private void unlockReadAll(long[] stamps) {
+		_staffLock.unlockRead(stamps[_dayLocks.length]);
+		for (int i = _dayLocks.length - 1; i >= 0; i--) {
+			_dayLocks[i].unlockRead(stamps[i]);
+		}
+	}
+	
+	/**
+	 * Takes every write lock, in the order Monday to Sunday, then staff
+	 * @return stamps, indexed by DayOfWeek ordinal, with the staff stamp last
+	 */
+	private long[] writeLockAll() {
+		long[] stamps = new long[_dayLocks.length + 1];
+		for (int i = 0; i < _dayLocks.length; i++) {
+			stamps[i] = _dayLocks[i].writeLock();
+		}
+		stamps[_dayLocks.length] = _staffLock.writeLock();
+		return stamps;
+	}
+	
+	private void unlockWriteAll(long[] stamps) {
+		_staffLock.unlockWrite(stamps[_dayLocks.length]);
+		for (int i = _dayLocks.length - 1; i >= 0; i--) {
+			_dayLocks[i].unlockWrite(stamps[i]);
+		}
+	}
+	
+	/**
+	 * Adds a shift to the week index, used by RosterBatch and when loading
+	 * @param shift
+	 */
+	void indexShift(Shift shift) {
+		_weekIndex.put(WEEK_KEYS[shift.getChronologicalKey()], shift);
+	}
+	
+	private StampedLock lockFor(Day d) {
+		return _dayLocks[d.getDayOfWeek().ordinal()];
+	}
+	
+	/**
+	 * Retrieves a day, used when loading a saved roster (see RosterLoader)
+	 * @param day
+	 * @return the Day
+	 */
+	Day getDay(DayOfWeek day) {
+		return _day.get(day);
+	}
+	
+	/**
+	 * Registers a staff member without checking for duplicates or sorting, used when loading a saved roster
+	 * (see RosterLoader) or making a batch of changes. The list of staff must be sorted afterwards.
+	 * @param staff
+	 */
+	void loadStaff(StaffWorker staff) {
+		_staffTable.add(staff);
+		_staffList.add(staff);
+	}
+	
+	/**
+	 * Sorts every list in the roster once, after a saved roster has been loaded, and publishes it as one version.
+	 * Called before the roster is used by any other thread.
+	 */
+	void finishLoad() {
+		Collections.sort(_staffList);
+		for (StaffWorker s : _staffList) {
+			s.finishLoad();
+		}
+		for (Day d : _day.values()) {
+			d.finishLoad();
+			for (Shift shift : d.getListOfShifts()) {
+				indexShift(shift);
+			}
+		}
+		_current.set(new RosterSnapshot(_shopName, _day.values(), _staffList, _staffTable));
+		_modCount.incrementAndGet();
+	}
+	
+	/**
+	 * @return the ids of the registered staff (see StaffTable)
+	 */
+	StaffTable getStaffTable() {
+		return _staffTable;
+	}
+	
+	/**
+	 * Looks up a registered staff member by name, used when loading a saved roster (see RosterLoader)
+	 * @param nameKey see StaffWorker.toNameKey
+	 * @return the StaffWorker, or null if no staff member with that name is registered
+	 */
+	StaffWorker findStaffByKey(String nameKey) {
+		return _staffTable.find(nameKey);
+	}
+	
+	/**
+	 * Looks up a day by name
+	 * @param dayOfWeek must match one of the 7 days exactly
+	 * @return the Day, or null if the name is misspelled or invalid
+	 */
+	private Day getDay(String dayOfWeek) {
+		DayOfWeek day = DayOfWeek.fromString(dayOfWeek);
+		if (day == null) {
+			return null;
+		}
+		return _day.get(day);
+	}
+	
+	/**
+	 * Looks up a registered staff member by name (case insensitive)
+	 * @param fullName in format "Givenname FamilyName"
+	 * @return the StaffWorker, or null if no staff member with that name is registered
+	 */
+	private StaffWorker findStaff(String fullName) {
+		return _staffTable.find(StaffWorker.toNameKey(fullName));
+	}
+	
 	public String toString() {
 		return _shopName;
 	}
@@ -0,0 +1,298 @@
+package shiftman.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * RosterBatch makes a list of changes to a Roster all at once, or not at all (see Roster.applyBatch).
+ * This class has the following functionality:
+ * 		- checks every command before changing anything, in the same way as the Roster method for that command.
+ * 		  Each command is checked against the roster as it would be after the commands before it, so a batch
+ * 		  can add a shift and then assign staff to it, or register staff and then assign them.
+ * 		- if every command is valid, makes all the changes without sorting any list after each one, then sorts
+ * 		  each list that changed once (the same way RosterLoader does)
+ * Commands that the Roster method would silently ignore (e.g. assigning staff that are not registered, or adding
+ * a shift to a day without working hours) are valid, and do nothing.
+ * Roster must hold every lock while a batch is checked and made.
+ * @author Martin Tiangco
+ *
+ */
+class RosterBatch {
+	//fields
+	private final Roster _roster;
+	private final List<RosterCommand> _commands;
+	private final List<Exception> _errors;			//one entry per command, null if valid
+	private final List<Step> _steps = new ArrayList<>();	//one entry per command, null if it does nothing
+	private final Set<DayOfWeek> _changedDays = EnumSet.noneOf(DayOfWeek.class);
+	private boolean _newStaff = false;
+	//changes made by earlier commands in the batch, used to check later ones
+	private final boolean[] _workingHours = new boolean[DayOfWeek.values().length];
+	private final Map<DayOfWeek, TreeMap<Integer, Shift>> _pendingShifts = new HashMap<>();	//by start minute
+	private final Map<String, StaffWorker> _pendingStaff = new HashMap<>();					//by name key
+	private final Map<StaffWorker, long[][]> _pendingBookings = new IdentityHashMap<>();	//see StaffWorker.book
+	private final Map<StaffWorker, long[][]> _releasedBookings = new IdentityHashMap<>();	//of replaced managers
+	private final Map<Shift, StaffWorker> _pendingManagers = new IdentityHashMap<>();
+	
+	/**
+	 * A checked command, with the days, times, shift and staff it refers to already looked up
+	 */
+	private static final class Step {
+		private final RosterCommand.Kind _kind;
+		private final Day _day;
+		private final TimeOfDay _startTime;
+		private final TimeOfDay _endTime;
+		private final Shift _shift;
+		private final StaffWorker _staff;
+		private final boolean _isManager;
+	
+		private Step(RosterCommand.Kind kind, Day day, TimeOfDay startTime, TimeOfDay endTime, Shift shift,
+				StaffWorker staff, boolean isManager) {
+			_kind = kind;
+			_day = day;
+			_startTime = startTime;
+			_endTime = endTime;
+			_shift = shift;
+			_staff = staff;
+			_isManager = isManager;
+		}
+	}
+	
+	RosterBatch(Roster roster, List<RosterCommand> commands) {
+		_roster = roster;
+		_commands = commands;
+		_errors = new ArrayList<>(commands.size());
+		for (DayOfWeek d : DayOfWeek.values()) {
+			_workingHours[d.ordinal()] = roster.getDay(d).hasWorkingHours();
+		}
+	}
+	
+	/**
+	 * Checks every command, in order
+	 * @return true if every command is valid
+	 */
+	boolean validate() {
+		boolean valid = true;
+		for (RosterCommand command : _commands) {
+			try {
+				_steps.add(validate(command));
+				_errors.add(null);
+			} catch (RosterException | TimeException | ShiftOverlapException | StaffException
+					| DuplicateStaffException | ShiftException | StaffConflictException | NumberFormatException e) {
+				_steps.add(null);
+				_errors.add(e);
+				valid = false;
+			}
+		}
+		return valid;
+	}
+	
+	private Step validate(RosterCommand command) throws RosterException, TimeException, ShiftOverlapException,
+			StaffException, DuplicateStaffException, ShiftException, StaffConflictException {
+		switch (command.getKind()) {
+		case WORKING_HOURS :
+			return validateWorkingHours(command);
+		case SHIFT :
+			return validateShift(command);
+		case STAFF :
+			return validateStaff(command);
+		default :
+			return validateAssignment(command);
+		}
+	}
+	
+	private Step validateWorkingHours(RosterCommand command) throws RosterException, TimeException {
+		DateTime datetime = new DateTime(command.getStartTime(), command.getEndTime());
+		if (!datetime.checkIfValidWorkingHours()) {
+			throw new TimeException("TimeException: Please provide a valid start and/or end time.");
+		}
+		DayOfWeek day = DayOfWeek.fromString(command.getDayOfWeek());
+		if (day == null) {
+			throw new RosterException("RosterException: Please write a valid name of day");
+		}
+		_workingHours[day.ordinal()] = true;
+		return new Step(command.getKind(), _roster.getDay(day), datetime.getStartTime(), datetime.getEndTime(),
+				null, null, false);
+	}
+	
+	private Step validateShift(RosterCommand command) throws RosterException, TimeException, ShiftOverlapException {
+		DateTime datetime = new DateTime(command.getStartTime(), command.getEndTime());
+		if (!datetime.checkIfValidWorkingHours()) {
+			throw new TimeException("TimeException: Please provide a valid start and/or end time.");
+		}
+		DayOfWeek day = DayOfWeek.fromString(command.getDayOfWeek());
+		if (day == null) {
+			throw new RosterException("RosterException: Provided dayOfWeek is not valid");
+		}
+		if (!_workingHours[day.ordinal()]) {							//Day.addShift does nothing
+			return null;
+		}
+		Shift shift = new Shift(day, datetime.getStartTime(), datetime.getEndTime(), command.getMinimumWorkers(),
+				_roster.getStaffTable());
+		int start = shift.getStartMinute();
+		int end = shift.getEndMinute();
+		TreeMap<Integer, Shift> pending = _pendingShifts.computeIfAbsent(day, d -> new TreeMap<>());
+		Map.Entry<Integer, Shift> before = pending.floorEntry(start);
+		Map.Entry<Integer, Shift> after = pending.ceilingEntry(start);
+		if (_roster.getDay(day).overlaps(start, end)
+				|| (before != null && before.getValue().getEndMinute() > start)
+				|| (after != null && after.getKey() < end)) {
+			throw new ShiftOverlapException("ShiftOverlapException: Shift overlaps with an existing shift.");
+		}
+		pending.put(start, shift);
+		return new Step(command.getKind(), _roster.getDay(day), null, null, shift, null, false);
+	}
+	
+	private Step validateStaff(RosterCommand command) throws StaffException, DuplicateStaffException {
+		String givenName = command.getGivenName();
+		String familyName = command.getFamilyName();
+		if (givenName == null || familyName == null || givenName.isEmpty() || familyName.isEmpty()) {
+			throw new StaffException("StaffException: Given/Family names are empty");
+		}
+		StaffWorker staff = new StaffWorker(givenName, familyName);
+		if (_roster.findStaffByKey(staff.getNameKey()) != null || _pendingStaff.containsKey(staff.getNameKey())) {
+			throw new DuplicateStaffException("DuplicateStaffException: Staff already registered.");
+		}
+		_pendingStaff.put(staff.getNameKey(), staff);
+		return new Step(command.getKind(), null, null, null, null, staff, false);
+	}
+	
+	private Step validateAssignment(RosterCommand command) throws ShiftException, StaffConflictException {
+		DayOfWeek day = DayOfWeek.fromString(command.getDayOfWeek());
+		if (day == null) {												//Roster.assignStaff does nothing
+			return null;
+		}
+		TimeOfDay startTime = TimeOfDay.parse(command.getStartTime());
+		TimeOfDay endTime = TimeOfDay.parse(command.getEndTime());
+		Shift shift = _roster.getDay(day).getExistingShift(startTime, endTime);
+		TreeMap<Integer, Shift> pending = _pendingShifts.get(day);
+		if (shift == null && pending != null && startTime != null) {
+			Shift added = pending.get(startTime.getMinute());
+			if (added != null && added.getEndTime() == endTime) {
+				shift = added;
+			}
+		}
+		if (shift == null) {
+			throw new ShiftException("ShiftException: Specified shift is not found in list of shifts.");
+		}
+		String nameKey = StaffWorker.toNameKey(command.getGivenName() + " " + command.getFamilyName());
+		StaffWorker staff = _roster.findStaffByKey(nameKey);
+		if (staff == null) {
+			staff = _pendingStaff.get(nameKey);
+		}
+		if (staff == null) {											//Roster.assignStaff does nothing
+			return null;
+		}
+		int start = shift.getStartMinute();
+		int end = shift.getEndMinute();
+		long[][] booked = _pendingBookings.computeIfAbsent(staff, s -> new long[DayOfWeek.values().length][]);
+		long[][] released = _releasedBookings.get(staff);
+		boolean busy = released == null ? !staff.isFree(day, start, end)
+				: staff.isBookedUnlessReleased(released, day, start, end);
+		if (busy || StaffWorker.isBooked(booked, day, start, end)) {
+			throw new StaffConflictException("StaffConflictException: Staff is already assigned at that time.");
+		}
+		StaffWorker.book(booked, day, start, end);
+		if (command.isManager()) {						//the manager it replaces is freed, as in StaffWorker.assignShift
+			StaffWorker previous = _pendingManagers.containsKey(shift) ? _pendingManagers.get(shift)
+					: shift.getManagerStaff();
+			if (previous != null) {
+				long[][] previousBooked = _pendingBookings.get(previous);
+				if (previousBooked != null) {
+					StaffWorker.unbook(previousBooked, day, start, end);
+				}
+				StaffWorker.book(_releasedBookings.computeIfAbsent(previous, s -> new long[DayOfWeek.values().length][]),
+						day, start, end);
+			}
+			_pendingManagers.put(shift, staff);
+		}
+		return new Step(command.getKind(), _roster.getDay(day), null, null, shift, staff, command.isManager());
+	}
+	
+	/**
+	 * Makes every change, in order, then sorts each list that changed once. Must only be called if validate()
+	 * returned true.
+	 * @param journal records each change, or null
+	 */
+	void apply(RosterJournal journal) {
+		Map<StaffWorker, Boolean> changedStaff = new IdentityHashMap<>();
+		for (Step step : _steps) {
+			if (step == null) {
+				continue;
+			}
+			switch (step._kind) {
+			case WORKING_HOURS :
+				step._day.setStartAndEndTimes(step._startTime, step._endTime);
+				_changedDays.add(step._day.getDayOfWeek());
+				if (journal != null) {
+					journal.logWorkingHours(step._day.getDayOfWeek(), step._startTime, step._endTime);
+				}
+				break;
+			case SHIFT :
+				step._day.loadShift(step._shift);
+				_roster.indexShift(step._shift);
+				_changedDays.add(step._day.getDayOfWeek());
+				if (journal != null) {
+					journal.logShift(step._shift);
+				}
+				break;
+			case STAFF :
+				_roster.loadStaff(step._staff);
+				_newStaff = true;
+				if (journal != null) {
+					journal.logStaff(step._staff);
+				}
+				break;
+			default :
+				StaffWorker previous = step._isManager ? step._shift.getManagerStaff() : null;
+				if (previous != null) {
+					changedStaff.put(previous, Boolean.TRUE);			//unassigned by loadShift
+				}
+				step._staff.loadShift(step._shift, step._isManager);
+				if (step._isManager == false) {
+					step._shift.loadStaffMember(step._staff);
+				}
+				changedStaff.put(step._staff, Boolean.TRUE);
+				_changedDays.add(step._day.getDayOfWeek());
+				if (journal != null) {
+					journal.logAssignment(step._shift, step._staff, step._isManager);
+				}
+			}
+		}
+		for (StaffWorker staff : changedStaff.keySet()) {
+			staff.finishLoad();
+		}
+		for (DayOfWeek d : _changedDays) {
+			_roster.getDay(d).finishLoad();
+		}
+	}
+	
+	/**
+	 * Retrieves the result of checking each command
+	 * @return one entry per command, in the same order: null if valid, otherwise the exception the Roster method
+	 * 			for that command would have thrown (NumberFormatException if minimum workers is not a number)
+	 */
+	List<Exception> getErrors() {
+		return Collections.unmodifiableList(_errors);
+	}
+	
+	/**
+	 * @return the days whose working hours or shifts were changed by apply()
+	 */
+	Set<DayOfWeek> getChangedDays() {
+		return _changedDays;
+	}
+	
+	/**
+	 * @return true if apply() registered any staff
+	 */
+	boolean hasNewStaff() {
+		return _newStaff;
+	}
+}
@@ -0,0 +1,138 @@
+package shiftman.server;
+
+/**
+ * RosterCommand is one change to a roster, to be made as part of a batch (see ShiftManServer.applyBatch).
+ * There is one kind of command for each of the ShiftMan methods that change a roster, other than newRoster:
+ * 		- setWorkingHours
+ * 		- addShift
+ * 		- registerStaff
+ * 		- assignStaff
+ * Each command keeps the same parameters as the ShiftMan method, and is checked in the same way.
+ * @author Martin Tiangco
+ *
+ */
+public final class RosterCommand {
+	/**
+	 * The ShiftMan method that a command stands for
+	 */
+	enum Kind {
+		WORKING_HOURS, SHIFT, STAFF, ASSIGN
+	}
+	
+	//fields
+	private final Kind _kind;
+	private final String _dayOfWeek;
+	private final String _startTime;
+	private final String _endTime;
+	private final String _minimumWorkers;
+	private final String _givenName;
+	private final String _familyName;
+	private final boolean _isManager;
+	
+	private RosterCommand(Kind kind, String dayOfWeek, String startTime, String endTime, String minimumWorkers,
+			String givenName, String familyName, boolean isManager) {
+		_kind = kind;
+		_dayOfWeek = dayOfWeek;
+		_startTime = startTime;
+		_endTime = endTime;
+		_minimumWorkers = minimumWorkers;
+		_givenName = givenName;
+		_familyName = familyName;
+		_isManager = isManager;
+	}
+	
+	/**
+	 * Creates a command that sets the working hours of a day, see ShiftMan.setWorkingHours
+	 * @param dayOfWeek
+	 * @param startTime
+	 * @param endTime
+	 * @return the command
+	 */
+	public static RosterCommand setWorkingHours(String dayOfWeek, String startTime, String endTime) {
+		return new RosterCommand(Kind.WORKING_HOURS, dayOfWeek, startTime, endTime, null, null, null, false);
+	}
+	
+	/**
+	 * Creates a command that adds a shift, see ShiftMan.addShift
+	 * @param dayOfWeek
+	 * @param startTime
+	 * @param endTime
+	 * @param minimumWorkers
+	 * @return the command
+	 */
+	public static RosterCommand addShift(String dayOfWeek, String startTime, String endTime, String minimumWorkers) {
+		return new RosterCommand(Kind.SHIFT, dayOfWeek, startTime, endTime, minimumWorkers, null, null, false);
+	}
+	
+	/**
+	 * Creates a command that registers a staff member, see ShiftMan.registerStaff
+	 * @param givenName
+	 * @param familyName
+	 * @return the command
+	 */
+	public static RosterCommand registerStaff(String givenName, String familyName) {
+		return new RosterCommand(Kind.STAFF, null, null, null, null, givenName, familyName, false);
+	}
+	
+	/**
+	 * Creates a command that assigns a staff member to a shift, see ShiftMan.assignStaff
+	 * @param dayOfWeek
+	 * @param startTime
+	 * @param endTime
+	 * @param givenName
+	 * @param familyName
+	 * @param isManager
+	 * @return the command
+	 */
+	public static RosterCommand assignStaff(String dayOfWeek, String startTime, String endTime, String givenName,
+			String familyName, boolean isManager) {
+		return new RosterCommand(Kind.ASSIGN, dayOfWeek, startTime, endTime, null, givenName, familyName, isManager);
+	}
+	
+	Kind getKind() {
+		return _kind;
+	}
+	
+	String getDayOfWeek() {
+		return _dayOfWeek;
+	}
+	
+	String getStartTime() {
+		return _startTime;
+	}
+	
+	String getEndTime() {
+		return _endTime;
+	}
+	
+	String getMinimumWorkers() {
+		return _minimumWorkers;
+	}
+	
+	String getGivenName() {
+		return _givenName;
+	}
+	
+	String getFamilyName() {
+		return _familyName;
+	}
+	
+	boolean isManager() {
+		return _isManager;
+	}
+	
+	@Override
+	public String toString() {
+		switch (_kind) {
+		case WORKING_HOURS :
+			return "setWorkingHours(" + _dayOfWeek + ", " + _startTime + ", " + _endTime + ")";
+		case SHIFT :
+			return "addShift(" + _dayOfWeek + ", " + _startTime + ", " + _endTime + ", " + _minimumWorkers + ")";
+		case STAFF :
+			return "registerStaff(" + _givenName + ", " + _familyName + ")";
+		default :
+			return "assignStaff(" + _dayOfWeek + ", " + _startTime + ", " + _endTime + ", " + _givenName + ", "
+					+ _familyName + ", " + _isManager + ")";
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package shiftman.server;
+
+/**
+ * RosterIssues collects the problems found with a roster so they can be reported together.
+ * This class has the following functionality:
+ * 		- records each kind of issue in its own section as it is found, so a roster only needs to be gone through once
+ * 		  no matter how many kinds of issues are reported
+ * 		- formats all of the issues into a single string, one issue per line, grouped by kind of issue
+ * The kinds of issues are:
+ * 		- understaffed and overstaffed shifts
+ * 		- shifts without a manager
+ * 		- staff that are not assigned to any shift
+ * 		- days with working hours but no shifts
+ * 		- periods within the working hours of a day that are not covered by a shift
+ * @author Martin Tiangco
+ *
+ */
+public class RosterIssues {
+	//fields
+	private final StringBuilder _understaffed = new StringBuilder();
+	private final StringBuilder _overstaffed = new StringBuilder();
+	private final StringBuilder _withoutManager = new StringBuilder();
+	private final StringBuilder _unassignedStaff = new StringBuilder();
+	private final StringBuilder _daysWithoutShifts = new StringBuilder();
+	private final StringBuilder _coverageGaps = new StringBuilder();
+	private int _count = 0;
+	
+	public void addUnderstaffed(Shift shift) {
+		addLine(_understaffed, shift).append(" has ").append(shift.getNumberOfWorkers())
+				.append(" of ").append(shift.getMinimumWorkers()).append(" workers needed");
+	}
+	
+	public void addOverstaffed(Shift shift) {
+		addLine(_overstaffed, shift).append(" has ").append(shift.getNumberOfWorkers())
+				.append(" workers, only ").append(shift.getMinimumWorkers()).append(" needed");
+	}
+	
+	public void addWithoutManager(Shift shift) {
+		addLine(_withoutManager, shift);
+	}
+	
+	public void addUnassignedStaff(StaffWorker staff) {
+		addLine(_unassignedStaff, staff.getFullName());
+	}
+	
+	public void addDayWithoutShifts(Day day) {
+		addLine(_daysWithoutShifts, day).append(" ").append(day.getStartWorkingHours())
+				.append("-").append(day.getEndWorkingHours());
+	}
+	
+	/**
+	 * Records a period within the working hours of a day that no shift covers
+	 * @param day
+	 * @param start in minutes
+	 * @param end in minutes
+	 */
+	public void addCoverageGap(Day day, int start, int end) {
+		addLine(_coverageGaps, day).append("[").append(TimeOfDay.of(start)).append("-")
+				.append(TimeOfDay.of(end)).append("]");
+	}
+	
+	/**
+	 * Retrieves the number of issues found
+	 * @return number of issues
+	 */
+	public int getCount() {
+		return _count;
+	}
+	
+	private StringBuilder addLine(StringBuilder section, Object item) {
+		_count++;
+		return section.append("\n\t").append(item);
+	}
+	
+	/**
+	 * Retrieves all of the issues, grouped by kind of issue, or an empty string if there are no issues
+	 */
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		appendSection(report, "Understaffed shifts:", _understaffed);
+		appendSection(report, "Overstaffed shifts:", _overstaffed);
+		appendSection(report, "Shifts without a manager:", _withoutManager);
+		appendSection(report, "Unassigned staff:", _unassignedStaff);
+		appendSection(report, "Days with working hours but no shifts:", _daysWithoutShifts);
+		appendSection(report, "Working hours not covered by a shift:", _coverageGaps);
+		return report.toString();
+	}
+	
+	private static void appendSection(StringBuilder report, String heading, StringBuilder section) {
+		if (section.length() > 0) {
+			if (report.length() > 0) {
+				report.append("\n");
+			}
+			report.append(heading).append(section);
+		}
+	}
+}
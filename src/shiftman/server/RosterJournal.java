@@ -0,0 +1,405 @@
+package shiftman.server;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * RosterJournal saves every successful change to a roster to a file, so the roster can be rebuilt after a restart.
+ * This class has the following functionality:
+ * 		- adds one record to the end of the file for each change (new roster, working hours, shift, staff, assignment,
+ * 		  unassignment)
+ * 		- saves records to disk in groups: many threads waiting for their changes to be saved share one fsync
+ * 		- rebuilds the roster from the file when it is opened, without checking each change again and without
+ * 		  sorting after each change (see RosterLoader). Times are saved as minutes, so nothing needs to be parsed.
+ * 		- ignores a record that was only partly written when the program stopped, and removes it from the file.
+ * 		  A damaged record before the last one is reported as an error instead, so no saved changes are removed.
+ *
+ * Each record is: length (int), CRC32 of the data (int), then the data: record type (byte) and its fields.
+ * Names are their length in bytes (int) followed by UTF-8 bytes.
+ * Records are added by Roster while it holds the lock for the change, so they are in the same order as the changes.
+ * Callers then call sync() after releasing the lock, which waits until their record is on disk.
+ * @author Martin Tiangco
+ *
+ */
+public class RosterJournal implements AutoCloseable {
+	//record types
+	private static final byte NEW_ROSTER = 1;
+	private static final byte WORKING_HOURS = 2;
+	private static final byte SHIFT = 3;
+	private static final byte STAFF = 4;
+	private static final byte ASSIGN = 5;
+	private static final byte UNASSIGN = 6;
+	private static final int MAX_TEXT_LENGTH = 1 << 24;				//bytes of UTF-8 in one name or name key
+	private static final int MAX_RECORD_LENGTH = 1 + 2 * (4 + MAX_TEXT_LENGTH);	//type and two names, the largest record
+	
+	//fields
+	private final FileChannel _channel;
+	private final Roster _recoveredRoster;
+	private final Object _lock = new Object();
+	private ByteArrayOutputStream _pending = new ByteArrayOutputStream();	//records not yet written to the file
+	private long _appended = 0;			//number of records added
+	private long _durable = 0;			//number of records on disk
+	private boolean _syncing = false;	//true while a thread is writing a group of records
+	private IOException _failure;		//once a write fails, no more records can be saved
+	
+	private RosterJournal(FileChannel channel, Roster recoveredRoster) {
+		_channel = channel;
+		_recoveredRoster = recoveredRoster;
+	}
+	
+	/**
+	 * Opens a journal file, creating it if it does not exist, and rebuilds the roster saved in it
+	 * @param file
+	 * @return the journal, ready for new records to be added after the saved ones
+	 * @throws IOException if the file cannot be read or written, or is damaged before its last record
+	 */
+	public static RosterJournal open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			Replay replay = new Replay();
+			long validLength = replay.read(new BufferedInputStream(Channels.newInputStream(channel)), channel.size());
+			channel.truncate(validLength);			//remove a record that was only partly written
+			channel.position(validLength);
+			return new RosterJournal(channel, replay.finish());
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Retrieves the roster rebuilt from the file when it was opened
+	 * @return the roster, or null if no roster has been saved
+	 */
+	public Roster getRecoveredRoster() {
+		return _recoveredRoster;
+	}
+	
+	void logNewRoster(String shopName) {
+		append(NEW_ROSTER, out -> writeText(out, shopName));
+	}
+	
+	void logWorkingHours(DayOfWeek day, TimeOfDay startTime, TimeOfDay endTime) {
+		append(WORKING_HOURS, out -> {
+			out.writeByte(day.ordinal());
+			out.writeShort(startTime.getMinute());
+			out.writeShort(endTime.getMinute());
+		});
+	}
+	
+	void logShift(Shift shift) {
+		append(SHIFT, out -> {
+			out.writeByte(shift.getDayOfWeek().ordinal());
+			out.writeShort(shift.getStartMinute());
+			out.writeShort(shift.getEndMinute());
+			out.writeInt(shift.getMinimumWorkers());
+		});
+	}
+	
+	void logStaff(StaffWorker staff) {
+		append(STAFF, out -> {
+			writeText(out, staff.getGivenName());
+			writeText(out, staff.getFamilyName());
+		});
+	}
+	
+	void logAssignment(Shift shift, StaffWorker staff, boolean isManager) {
+		append(ASSIGN, out -> {
+			out.writeByte(shift.getDayOfWeek().ordinal());
+			out.writeShort(shift.getStartMinute());
+			writeText(out, staff.getNameKey());
+			out.writeBoolean(isManager);
+		});
+	}
+	
+	void logUnassignment(Shift shift, StaffWorker staff) {
+		append(UNASSIGN, out -> {
+			out.writeByte(shift.getDayOfWeek().ordinal());
+			out.writeShort(shift.getStartMinute());
+			writeText(out, staff.getNameKey());
+		});
+	}
+	
+	/**
+	 * Writes text as its length in bytes (int) followed by UTF-8 bytes, the same as RosterSnapshotFile
+	 * @param out
+	 * @param text
+	 * @throws IOException if the text is longer than MAX_TEXT_LENGTH bytes
+	 */
+	private static void writeText(DataOutputStream out, String text) throws IOException {
+		byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+		if (utf8.length > MAX_TEXT_LENGTH) {
+			throw new IOException("Text of " + utf8.length + " bytes is too long for the journal");
+		}
+		out.writeInt(utf8.length);
+		out.write(utf8);
+	}
+	
+	/**
+	 * Writes the fields of a record
+	 */
+	private interface RecordWriter {
+		void write(DataOutputStream out) throws IOException;
+	}
+	
+	/**
+	 * Adds a record to the group of records waiting to be written. Does not write to the file.
+	 * If the record cannot be made (a name is too long), the change it is for has already been made, so the
+	 * journal can no longer match the roster: it fails, and sync() reports the failure to every caller.
+	 * @param type
+	 * @param fields
+	 */
+	private void append(byte type, RecordWriter fields) {
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		try {
+			DataOutputStream out = new DataOutputStream(data);
+			out.writeByte(type);
+			fields.write(out);
+		} catch (IOException e) {
+			synchronized (_lock) {
+				if (_failure == null) {
+					_failure = e;
+				}
+			}
+			return;
+		}
+		byte[] record = data.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(record);
+		ByteBuffer header = ByteBuffer.allocate(8).putInt(record.length).putInt((int) crc.getValue());
+		synchronized (_lock) {
+			_pending.write(header.array(), 0, 8);
+			_pending.write(record, 0, record.length);
+			_appended++;
+		}
+	}
+	
+	/**
+	 * Waits until every record added so far is on disk. If no other thread is writing, this thread writes every
+	 * waiting record (including other threads' records) and forces them to disk with a single fsync.
+	 * Otherwise it waits for that thread, then writes the records that were added in the meantime.
+	 * @throws IOException if the records cannot be written
+	 */
+	public void sync() throws IOException {
+		byte[] group;
+		long groupEnd;
+		synchronized (_lock) {
+			long target = _appended;
+			while (true) {
+				if (_failure != null) {
+					throw new IOException("Journal can no longer be written to", _failure);
+				}
+				if (_durable >= target) {
+					return;
+				}
+				if (!_syncing) {
+					break;
+				}
+				try {
+					_lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for journal to be saved");
+				}
+			}
+			_syncing = true;						//this thread writes the group
+			group = _pending.toByteArray();
+			groupEnd = _appended;
+			_pending = new ByteArrayOutputStream();
+		}
+		IOException failure = null;
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(group);
+			while (buffer.hasRemaining()) {
+				_channel.write(buffer);
+			}
+			_channel.force(false);
+		} catch (IOException e) {
+			failure = e;
+		}
+		synchronized (_lock) {
+			_syncing = false;
+			if (failure == null) {
+				_durable = groupEnd;
+			} else {
+				_failure = failure;
+			}
+			_lock.notifyAll();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+	
+	/**
+	 * Saves any waiting records and closes the file
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			sync();
+		} finally {
+			_channel.close();
+		}
+	}
+	
+	/**
+	 * Reads the records in a journal file and rebuilds the last roster in it
+	 */
+	private static class Replay {
+		private RosterLoader _loader;
+	
+		/**
+		 * Reads records until the end of the file, or until the last record if it was only partly written.
+		 * The last record was only partly written if it runs past the end of the file, its data does not match
+		 * its CRC, or it and the rest of the file are zeros (space the file system added but did not write).
+		 * A length longer than any record is damage rather than a partly written record.
+		 * @param in
+		 * @param fileSize
+		 * @return length of the file up to the end of the last complete record
+		 * @throws IOException if the file cannot be read, or a record before the last one is damaged
+		 */
+		private long read(InputStream in, long fileSize) throws IOException {
+			DataInputStream data = new DataInputStream(in);
+			long validLength = 0;
+			while (true) {
+				long remaining = fileSize - validLength;
+				if (remaining < 8) {						//end of file, or header only partly written
+					return validLength;
+				}
+				int length = data.readInt();
+				int expectedCrc = data.readInt();
+				if (length > MAX_RECORD_LENGTH) {			//checked before the record is read into memory
+					throw new IOException("Journal record at " + validLength + " has an invalid length " + length);
+				}
+				if (length > remaining - 8) {				//last record, only partly written
+					return validLength;
+				}
+				if (length <= 0) {
+					if (length == 0 && expectedCrc == 0 && isZeros(data, remaining - 8)) {
+						return validLength;
+					}
+					throw new IOException("Journal record at " + validLength + " has an invalid length " + length);
+				}
+				byte[] record = new byte[length];
+				data.readFully(record);
+				CRC32 crc = new CRC32();
+				crc.update(record);
+				if ((int) crc.getValue() != expectedCrc) {
+					if (length == remaining - 8) {			//last record, only partly written
+						return validLength;
+					}
+					throw new IOException("Journal record at " + validLength + " is damaged");
+				}
+				apply(new DataInputStream(new ByteArrayInputStream(record)));
+				validLength += 8 + length;
+			}
+		}
+	
+		/**
+		 * @param in
+		 * @param count
+		 * @return true if the next count bytes are all zeros
+		 * @throws IOException if the bytes cannot be read
+		 */
+		private static boolean isZeros(DataInputStream in, long count) throws IOException {
+			byte[] buffer = new byte[8192];
+			while (count > 0) {
+				int read = in.read(buffer, 0, (int) Math.min(buffer.length, count));
+				if (read < 0) {
+					throw new EOFException("Journal ended before its expected length");
+				}
+				for (int i = 0; i < read; i++) {
+					if (buffer[i] != 0) {
+						return false;
+					}
+				}
+				count -= read;
+			}
+			return true;
+		}
+	
+		private void apply(DataInputStream in) throws IOException {
+			byte type = in.readByte();
+			if (type == NEW_ROSTER) {
+				try {
+					_loader = new RosterLoader(readText(in));
+				} catch (RosterException e) {			//only valid names are saved
+					throw new IOException("Journal contains an invalid shop name", e);
+				}
+				return;
+			}
+			if (_loader == null) {
+				throw new IOException("Journal record found before the roster was created");
+			}
+			switch (type) {
+			case WORKING_HOURS :
+				_loader.workingHours(day(in), TimeOfDay.of(in.readShort()), TimeOfDay.of(in.readShort()));
+				break;
+			case SHIFT :
+				_loader.shift(day(in), TimeOfDay.of(in.readShort()), TimeOfDay.of(in.readShort()), in.readInt());
+				break;
+			case STAFF :
+				_loader.staff(readText(in), readText(in));
+				break;
+			case ASSIGN :
+				DayOfWeek day = day(in);
+				int startMinute = in.readShort();
+				StaffWorker staff = _loader.findStaff(readText(in));
+				if (!_loader.assign(day, startMinute, staff, in.readBoolean())) {
+					throw new IOException("Journal assigns staff to a shift or staff member that does not exist");
+				}
+				break;
+			case UNASSIGN :
+				DayOfWeek unassignDay = day(in);
+				int unassignStart = in.readShort();
+				if (!_loader.unassign(unassignDay, unassignStart, _loader.findStaff(readText(in)))) {
+					throw new IOException("Journal unassigns staff that are not assigned to the shift");
+				}
+				break;
+			default :
+				throw new IOException("Unknown journal record type " + type);
+			}
+		}
+	
+		private static String readText(DataInputStream in) throws IOException {
+			int length = in.readInt();
+			if (length < 0 || length > in.available()) {		//the record is in memory, so all of it is available
+				throw new IOException("Journal contains an invalid text length " + length);
+			}
+			byte[] utf8 = new byte[length];
+			in.readFully(utf8);
+			return new String(utf8, StandardCharsets.UTF_8);
+		}
+	
+		private static DayOfWeek day(DataInputStream in) throws IOException {
+			DayOfWeek day = DayOfWeek.fromOrdinal(in.readByte());
+			if (day == null) {
+				throw new IOException("Journal contains an invalid day");
+			}
+			return day;
+		}
+	
+		private Roster finish() {
+			if (_loader == null) {
+				return null;
+			}
+			return _loader.finish();
+		}
+	}
+}
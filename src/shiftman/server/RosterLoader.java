@@ -0,0 +1,114 @@
+package shiftman.server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RosterLoader rebuilds a Roster from a saved copy (see RosterJournal and RosterSnapshotFile), where every change being loaded is
+ * already known to be valid.
+ * This class has the following functionality:
+ * 		- adds working hours, shifts, staff and assignments (and removes assignments that were later undone)
+ * 		  without checking them again, and without sorting any list after each one
+ * 		- sorts every list in the roster once, when loading has finished
+ * @author Martin Tiangco
+ *
+ */
+class RosterLoader {
+	//fields
+	private final Roster _roster;
+	private final Map<Long, Shift> _shifts = new HashMap<>();		//see key(), to find shifts before they are sorted
+	
+	/**
+	 * Starts loading a new roster
+	 * @param shopName (must be valid)
+	 * @throws RosterException if invalid name has been given
+	 */
+	RosterLoader(String shopName) throws RosterException {
+		_roster = new Roster(shopName);
+	}
+	
+	void workingHours(DayOfWeek day, TimeOfDay startTime, TimeOfDay endTime) {
+		_roster.getDay(day).setStartAndEndTimes(startTime, endTime);
+	}
+	
+	Shift shift(DayOfWeek day, TimeOfDay startTime, TimeOfDay endTime, int minimumWorkers) {
+		Shift shift = new Shift(day, startTime, endTime, minimumWorkers, _roster.getStaffTable());
+		_roster.getDay(day).loadShift(shift);
+		_shifts.put(key(day, startTime.getMinute()), shift);
+		return shift;
+	}
+	
+	StaffWorker staff(String givenName, String familyName) {
+		StaffWorker staff = new StaffWorker(givenName, familyName);
+		_roster.loadStaff(staff);
+		return staff;
+	}
+	
+	/**
+	 * Looks up a staff member that has already been loaded
+	 * @param nameKey see StaffWorker.toNameKey
+	 * @return the StaffWorker, or null if not loaded
+	 */
+	StaffWorker findStaff(String nameKey) {
+		return _roster.findStaffByKey(nameKey);
+	}
+	
+	/**
+	 * Assigns a staff member to a shift that has already been loaded
+	 * @param day
+	 * @param startMinute start time of the shift
+	 * @param staff
+	 * @param isManager
+	 * @return false if there is no such shift
+	 */
+	boolean assign(DayOfWeek day, int startMinute, StaffWorker staff, boolean isManager) {
+		Shift shift = _shifts.get(key(day, startMinute));
+		if (shift == null || staff == null) {
+			return false;
+		}
+		assign(shift, staff, isManager);
+		return true;
+	}
+	
+	/**
+	 * Assigns a staff member to a shift, when both were returned by this loader. A new manager replaces the
+	 * shift's manager, as it did when the change was made.
+	 * @param shift
+	 * @param staff
+	 * @param isManager
+	 */
+	void assign(Shift shift, StaffWorker staff, boolean isManager) {
+		staff.loadShift(shift, isManager);
+		if (isManager == false) {
+			shift.loadStaffMember(staff);
+		}
+	}
+	
+	/**
+	 * Removes a staff member from a shift, found by day and start time
+	 * @param day
+	 * @param startMinute
+	 * @param staff
+	 * @return false if there is no such shift, or the staff member is not assigned to it
+	 */
+	boolean unassign(DayOfWeek day, int startMinute, StaffWorker staff) {
+		Shift shift = _shifts.get(key(day, startMinute));
+		if (shift == null || staff == null) {
+			return false;
+		}
+		return staff.unloadShift(shift);
+	}
+	
+	/**
+	 * Finishes loading, sorting every list once
+	 * @return the loaded Roster
+	 */
+	Roster finish() {
+		_roster.finishLoad();
+		return _roster;
+	}
+	
+	private static long key(DayOfWeek day, int startMinute) {
+		return (long) day.ordinal() * TimeOfDay.MINUTES_PER_DAY + startMinute;
+	}
+}
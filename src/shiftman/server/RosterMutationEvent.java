@@ -0,0 +1,84 @@
+package shiftman.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for a change to a Roster, so slow changes can be matched up with GC pauses and
+ * allocation in a recording. The event's duration is the time the change took, including waiting for locks.
+ * When Flight Recorder is not recording this event, start() returns null instead of creating one, and Roster
+ * only works out the fields if it has an event, so a change costs one check of whether the event is enabled.
+ * Even when it is recording, the text fields are only filled in if the event is going to be committed.
+ * @author Martin Tiangco
+ *
+ */
+@Name("shiftman.RosterMutation")
+@Label("Roster Mutation")
+@Category({"ShiftMan", "Roster"})
+@Description("A change to a roster: working hours set, shift added, staff registered or assigned, or a batch")
+@StackTrace(false)
+final class RosterMutationEvent extends Event {
+	private static final RosterMutationEvent ENABLED_CHECK = new RosterMutationEvent();	//never committed
+	
+	@Label("Operation")
+	String operation;
+	
+	@Label("Day")
+	String day;
+	
+	@Label("Shift Start")
+	String shiftStart;
+	
+	@Label("Shift End")
+	String shiftEnd;
+	
+	@Label("Staff")
+	String staff;
+	
+	@Label("Workers On Shift")
+	@Description("Number of workers on the shift after the change, or the number of commands in a batch")
+	int workers;
+	
+	@Label("Applied")
+	@Description("False if the change was rejected or did nothing")
+	boolean applied;
+	
+	/**
+	 * Creates the event and starts timing it, if Flight Recorder is recording it
+	 * @return the event, or null if it is not being recorded
+	 */
+	static RosterMutationEvent start() {
+		if (!ENABLED_CHECK.isEnabled()) {
+			return null;
+		}
+		RosterMutationEvent event = new RosterMutationEvent();
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * Records the event, if Flight Recorder is recording it
+	 * @param event from start(), or null
+	 * @param operation name of the Roster method
+	 * @param day as given to the method, or null
+	 * @param shiftStart as given to the method, or null
+	 * @param shiftEnd as given to the method, or null
+	 * @param givenName as given to the method, or null
+	 * @param familyName as given to the method, or null
+	 */
+	static void finish(RosterMutationEvent event, String operation, String day, String shiftStart, String shiftEnd,
+			String givenName, String familyName) {
+		if (event != null && event.shouldCommit()) {
+			event.operation = operation;
+			event.day = day;
+			event.shiftStart = shiftStart;
+			event.shiftEnd = shiftEnd;
+			event.staff = givenName == null ? null : givenName + " " + familyName;	//only joined if recorded
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package shiftman.server;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RosterPage is one page of the results of a query (see the paged queries in RosterSnapshot and ShiftManServer).
+ * This class has the following functionality:
+ * 		- has the strings on the page, in the same format and order as the query that returns every result
+ * 		- has the token to pass to the same query to get the next page, or null if this is the last page
+ * Tokens are opaque: they refer to the first result of the next page by its name or time rather than by its
+ * position, so staff or shifts added while paging do not make a page repeat or skip results.
+ * @author Martin Tiangco
+ *
+ */
+public final class RosterPage {
+	//fields
+	private final List<String> _items;
+	private final String _nextToken;
+	
+	RosterPage(List<String> items, String nextToken) {
+		_items = Collections.unmodifiableList(items);
+		_nextToken = nextToken;
+	}
+	
+	/**
+	 * @return the results on this page (cannot be modified), or a list with only an error in it
+	 */
+	public List<String> getItems() {
+		return _items;
+	}
+	
+	/**
+	 * @return token for the next page, or null if there are no more results
+	 */
+	public String getNextToken() {
+		return _nextToken;
+	}
+	
+	/**
+	 * @return true if there are more results after this page
+	 */
+	public boolean hasNext() {
+		return _nextToken != null;
+	}
+	
+	@Override
+	public String toString() {
+		return _items + (_nextToken == null ? "" : " next=" + _nextToken);
+	}
+}
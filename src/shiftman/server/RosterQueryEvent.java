@@ -0,0 +1,71 @@
+package shiftman.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for a query on a Roster, with how much of the roster it went through and how much it
+ * returned. The event's duration is the time the query took, including any retry under the read lock.
+ * Like RosterMutationEvent, start() returns null when the event is not being recorded, and the fields are only
+ * filled in if there is an event.
+ * @author Martin Tiangco
+ *
+ */
+@Name("shiftman.RosterQuery")
+@Label("Roster Query")
+@Category({"ShiftMan", "Roster"})
+@Description("A query on a roster")
+@StackTrace(false)
+final class RosterQueryEvent extends Event {
+	private static final RosterQueryEvent ENABLED_CHECK = new RosterQueryEvent();	//never committed
+	
+	@Label("Operation")
+	String operation;
+	
+	@Label("Argument")
+	@Description("Day or staff name the query was for, if any")
+	String argument;
+	
+	@Label("Staff Scanned")
+	int staffScanned;
+	
+	@Label("Shifts Scanned")
+	int shiftsScanned;
+	
+	@Label("Result Size")
+	@Description("Number of strings (or characters, for queries that return a String) returned")
+	int resultSize;
+	
+	/**
+	 * Creates the event and starts timing it, if Flight Recorder is recording it
+	 * @return the event, or null if it is not being recorded
+	 */
+	static RosterQueryEvent start() {
+		if (!ENABLED_CHECK.isEnabled()) {
+			return null;
+		}
+		RosterQueryEvent event = new RosterQueryEvent();
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * Records the event, if Flight Recorder is recording it
+	 * @param event from start(), or null
+	 * @param operation name of the Roster method
+	 * @param argument as given to the method, or null
+	 * @param resultSize
+	 */
+	static void finish(RosterQueryEvent event, String operation, String argument, int resultSize) {
+		if (event != null && event.shouldCommit()) {
+			event.operation = operation;
+			event.argument = argument;
+			event.resultSize = resultSize;
+			event.commit();
+		}
+	}
+}
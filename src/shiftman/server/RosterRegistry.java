@@ -0,0 +1,94 @@
+package shiftman.server;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * RosterRegistry holds the rosters for many shops, so that many shops can be managed in one program.
+ * This class has the following functionality:
+ * 		- gives each shop its own ShiftMan, with its own roster, so calls for one shop never affect another
+ * 		- creates the roster for a shop the first time the shop is asked for
+ * 		- can be used by many threads at once, as shops are stored in a ConcurrentHashMap keyed by shop name
+ * Calling newRoster on a shop's ShiftMan starts a new roster for that shop only. The shop name cannot be changed
+ * that way: newRoster or loadRoster with a different shop name returns an error and keeps the current roster, and
+ * so does newRoster with an empty name (with the same error as any other ShiftMan).
+ * @author Martin Tiangco
+ *
+ */
+public class RosterRegistry {
+	//fields
+	private final ConcurrentMap<String, ShiftManServer> _shops = new ConcurrentHashMap<>();
+	
+	/**
+	 * Retrieves the ShiftMan for a shop, creating a new roster for the shop if there is not one already
+	 * @param shopName (must be valid)
+	 * @return the shop's ShiftMan
+	 * @throws RosterException if the shop name is null or empty
+	 */
+	public ShiftMan getShop(String shopName) throws RosterException {
+		if (shopName == null || shopName.isEmpty()) {
+			throw new RosterException("RosterException: Please provide a non-empty shop name.");
+		}
+		return _shops.computeIfAbsent(shopName, RosterRegistry::createShop);
+	}
+	
+	/**
+	 * Retrieves the ShiftMan for a shop without creating one
+	 * @param shopName
+	 * @return the shop's ShiftMan, or null if the shop has no roster
+	 */
+	public ShiftMan findShop(String shopName) {
+		if (shopName == null) {
+			return null;
+		}
+		return _shops.get(shopName);
+	}
+	
+	/**
+	 * Removes a shop and its roster
+	 * @param shopName
+	 * @return true if the shop was removed, false if it had no roster
+	 */
+	public boolean removeShop(String shopName) {
+		if (shopName == null) {
+			return false;
+		}
+		return _shops.remove(shopName) != null;
+	}
+	
+	/**
+	 * Retrieves the names of all shops with a roster
+	 * @return shop names (cannot be modified)
+	 */
+	public Set<String> getShopNames() {
+		return Collections.unmodifiableSet(_shops.keySet());
+	}
+	
+	public int getShopCount() {
+		return _shops.size();
+	}
+	
+	private static ShiftManServer createShop(String shopName) {
+		ShiftManServer shop = new ShopServer(shopName);
+		shop.newRoster(shopName);		//shop name has already been checked, so this cannot fail
+		return shop;
+	}
+	
+	/**
+	 * ShiftMan for one shop, whose roster always has the shop's name, so the shop stays under the same key
+	 */
+	private static final class ShopServer extends ShiftManServer {
+		private final String _shopName;
+	
+		private ShopServer(String shopName) {
+			_shopName = shopName;
+		}
+	
+		@Override
+		String getFixedShopName() {
+			return _shopName;
+		}
+	}
+}
@@ -0,0 +1,760 @@
+package shiftman.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * RosterSnapshot is a version of a Roster that never changes, so it can be read from any thread without locks
+ * while the Roster it came from keeps being changed.
+ * This class has the following functionality:
+ * 		- has the same queries as Roster (registered and unassigned staff, understaffed, overstaffed and manager-less
+ * 		  shifts, and rosters for a day, worker or manager), with the same results as the Roster had at the time
+ * 		- has Stream versions of the queries that return lists, which make each string only when the stream
+ * 		  reaches it, and paged versions that return a RosterPage of at most a given number of strings. A page
+ * 		  starts from the token returned with the page before it, found by binary search in the staff or in the
+ * 		  day's staffing status list, so getting a page takes time in proportion to the page, not to the number
+ * 		  of staff or shifts before it (except for unassigned staff, see getUnassignedStaff(String, int)).
+ * 		- is made by Roster every time the roster changes, by copying only the parts that changed (the changed day
+ * 		  and shift, or the staff list), and sharing every other part with the previous version. Getting the 
+ * 		  current version from Roster.snapshot() does not copy anything.
+ * 		- keeps each day's understaffed, overstaffed and manager-less shifts in their own arrays, like Day does, so
+ * 		  those queries only go through their results. Changing a shift only updates its own day's arrays.
+ * 		- finds staff by name with the StaffTable's index, which every version shares. Staff are given ids in the
+ * 		  order they are registered, and a version has every staff member registered before it was made, so a
+ * 		  staff member found there is in this version only if their id is less than the number of staff in it.
+ * A snapshot refers to staff by their ids, sharing each shift's array of ids (which Shift never changes), and
+ * looks up StaffWorker objects in the StaffTable only for their names, which never change once registered.
+ * @author Martin Tiangco
+ *
+ */
+public final class RosterSnapshot {
+	//fields
+	private final String _shopName;
+	private final DayVersion[] _days;			//indexed by DayOfWeek ordinal
+	private final StaffWorker[] _staff;			//in alphabetical order
+	private final StaffTable _staffTable;
+	private static final char STAFF_TOKEN = 's';		//first character of a page token, before it is encoded
+	private static final char SHIFT_TOKEN = 'h';
+	
+	/**
+	 * Creates the first version of a roster, with no working hours, shifts or staff
+	 * @param shopName
+	 * @param staffTable the roster's staff
+	 */
+	RosterSnapshot(String shopName, StaffTable staffTable) {
+		_shopName = shopName;
+		_staffTable = staffTable;
+		_days = new DayVersion[DayOfWeek.values().length];
+		for (DayOfWeek d : DayOfWeek.values()) {
+			_days[d.ordinal()] = new DayVersion(d, null, null, new ShiftVersion[0], DayVersion.NO_STATUS_LISTS);
+		}
+		_staff = new StaffWorker[0];
+	}
+	
+	/**
+	 * Creates a version of a roster from its current state in one pass, used once a saved roster has been loaded
+	 * @param shopName
+	 * @param days in order from Monday to Sunday, with their shifts in chronological order
+	 * @param staff in alphabetical order
+	 * @param staffTable the roster's staff
+	 */
+	RosterSnapshot(String shopName, Iterable<Day> days, List<StaffWorker> staff, StaffTable staffTable) {
+		_shopName = shopName;
+		_staffTable = staffTable;
+		_days = new DayVersion[DayOfWeek.values().length];
+		for (Day d : days) {
+			_days[d.getDayOfWeek().ordinal()] = versionOf(d);
+		}
+		_staff = staff.toArray(new StaffWorker[0]);
+	}
+	
+	private RosterSnapshot(String shopName, DayVersion[] days, StaffWorker[] staff, StaffTable staffTable) {
+		_shopName = shopName;
+		_days = days;
+		_staff = staff;
+		_staffTable = staffTable;
+	}
+	
+	/**
+	 * Creates the next version with the working hours of a day changed
+	 * @param day
+	 * @param startTime
+	 * @param endTime
+	 * @return new version
+	 */
+	RosterSnapshot withWorkingHours(DayOfWeek day, TimeOfDay startTime, TimeOfDay endTime) {
+		DayVersion old = _days[day.ordinal()];
+		return withDay(new DayVersion(day, startTime, endTime, old._shifts, old._statusLists));
+	}
+	
+	/**
+	 * Creates the next version with a shift added or replaced by the shift's current state
+	 * @param shift must be locked by the caller so it does not change while it is copied
+	 * @return new version
+	 */
+	RosterSnapshot withShift(Shift shift) {
+		DayVersion old = _days[shift.getDayOfWeek().ordinal()];
+		ShiftVersion[] shifts = old._shifts;
+		ShiftVersion changed = new ShiftVersion(shift);
+		int index = old.indexOf(shift.getStartMinute());
+		ShiftVersion[] copy = replace(shifts, index, changed, true);
+		ShiftVersion[][] statusLists = new ShiftVersion[Status.values().length][];
+		for (Status status : Status.values()) {		//only the arrays the shift is or was in are copied
+			ShiftVersion[] list = old._statusLists[status.ordinal()];
+			statusLists[status.ordinal()] = replace(list, indexOf(list, changed.getStartMinute()), changed,
+					status.matches(changed));
+		}
+		return withDay(new DayVersion(old._day, old._startTime, old._endTime, copy, statusLists));
+	}
+	
+	/**
+	 * Puts a shift in an array of shifts in chronological order, or takes it out
+	 * @param shifts
+	 * @param index of the shift in the array (see indexOf), or (-(insertion point) - 1) if it is not in it
+	 * @param changed shift to put in its place
+	 * @param include false to take the shift out
+	 * @return the same array if nothing changed, otherwise a new array
+	 */
+	private static ShiftVersion[] replace(ShiftVersion[] shifts, int index, ShiftVersion changed, boolean include) {
+		if (index >= 0 && include) {							//replace existing shift
+			ShiftVersion[] copy = shifts.clone();
+			copy[index] = changed;
+			return copy;
+		} else if (index >= 0) {								//remove existing shift
+			ShiftVersion[] copy = new ShiftVersion[shifts.length - 1];
+			System.arraycopy(shifts, 0, copy, 0, index);
+			System.arraycopy(shifts, index + 1, copy, index, copy.length - index);
+			return copy;
+		} else if (include) {									//insert new shift, keeping chronological order
+			index = -(index + 1);
+			ShiftVersion[] copy = new ShiftVersion[shifts.length + 1];
+			System.arraycopy(shifts, 0, copy, 0, index);
+			copy[index] = changed;
+			System.arraycopy(shifts, index, copy, index + 1, shifts.length - index);
+			return copy;
+		}
+		return shifts;
+	}
+	
+	/**
+	 * Creates the next version with a new list of registered staff
+	 * @param staff in alphabetical order
+	 * @return new version
+	 */
+	RosterSnapshot withStaff(List<StaffWorker> staff) {
+		return new RosterSnapshot(_shopName, _days, staff.toArray(new StaffWorker[0]), _staffTable);
+	}
+	
+	/**
+	 * Creates the next version with a day's working hours and every one of its shifts copied again, used after
+	 * many changes to the day have been made at once (see RosterBatch)
+	 * @param day must be locked by the caller so it does not change while it is copied
+	 * @return new version
+	 */
+	RosterSnapshot withDay(Day day) {
+		return withDay(versionOf(day));
+	}
+	
+	private static DayVersion versionOf(Day d) {
+		List<Shift> shifts = d.getListOfShifts();
+		ShiftVersion[] versions = new ShiftVersion[shifts.size()];
+		for (int i = 0; i < versions.length; i++) {
+			versions[i] = new ShiftVersion(shifts.get(i));
+		}
+		ShiftVersion[][] statusLists = new ShiftVersion[Status.values().length][];
+		for (Status status : Status.values()) {
+			statusLists[status.ordinal()] = Arrays.stream(versions).filter(status::matches)
+					.toArray(ShiftVersion[]::new);
+		}
+		return new DayVersion(d.getDayOfWeek(), d.getStartWorkingHours(), d.getEndWorkingHours(), versions,
+				statusLists);
+	}
+	
+	private RosterSnapshot withDay(DayVersion day) {
+		DayVersion[] days = _days.clone();				//only 7 references, every other day is shared
+		days[day._day.ordinal()] = day;
+		return new RosterSnapshot(_shopName, days, _staff, _staffTable);
+	}
+	
+	/**
+	 * Retrieves a list of registered staff in String format
+	 * @return list of registered staff
+	 */
+	public List<String> getRegisteredStaff() {
+		List<String> staffNames = new ArrayList<>(_staff.length);
+		for (StaffWorker s : _staff) {
+			staffNames.add(s.getFullName());
+		}
+		return staffNames;
+	}
+	
+	/**
+	 * Retrieves a list of unassigned staff in String format
+	 * @return list of unassigned staff
+	 */
+	public List<String> getUnassignedStaff() {
+		boolean[] assigned = assignedStaff();
+		List<String> unassignedStaff = new ArrayList<>();
+		for (StaffWorker s : _staff) {
+			if (!assigned[s.getId()]) {
+				unassignedStaff.add(s.getFullName());
+			}
+		}
+		return unassignedStaff;
+	}
+	
+	/**
+	 * @return true for the id of each staff member assigned to a shift in this version, as worker or manager
+	 */
+	private boolean[] assignedStaff() {
+		boolean[] assigned = new boolean[_staffTable.size()];		//by id, staff registered later are not used
+		for (DayVersion d : _days) {
+			for (ShiftVersion shift : d._shifts) {
+				if (shift._manager != Shift.NO_STAFF) {
+					assigned[shift._manager] = true;
+				}
+				for (int id : shift._workers) {
+					assigned[id] = true;
+				}
+			}
+		}
+		return assigned;
+	}
+	
+	/**
+	 * Retrieves the shifts without managers
+	 * @return shifts no managers in String format
+	 */
+	public List<String> shiftsWithoutManagers() {
+		return shiftsWith(Status.WITHOUT_MANAGER);
+	}
+	
+	/**
+	 * Retrieves the shifts that have fewer workers than the minimum required
+	 * @return list of understaffed shifts in String format
+	 */
+	public List<String> understaffedShifts() {
+		return shiftsWith(Status.UNDERSTAFFED);
+	}
+	
+	/**
+	 * Retrieves the shifts that have more workers than the minimum required
+	 * @return list of overstaffed shifts in String format
+	 */
+	public List<String> overstaffedShifts() {
+		return shiftsWith(Status.OVERSTAFFED);
+	}
+	
+	private List<String> shiftsWith(Status status) {
+		List<String> shiftListString = new ArrayList<>();
+		for (DayVersion d : _days) {
+			for (ShiftVersion shift : d._statusLists[status.ordinal()]) {
+				shiftListString.add(shift.toString());
+			}
+		}
+		return shiftListString;
+	}
+	
+	/**
+	 * Retrieves the roster for a specified day, in the same format as Roster.getRosterForDay
+	 * @param dayOfWeek must match one of the 7 days
+	 * @return formatted roster, or an empty list if the day is invalid or has no shifts
+	 */
+	public List<String> getRosterForDay(String dayOfWeek) {
+		List<String> listShiftString = new ArrayList<>();
+		DayOfWeek day = DayOfWeek.fromString(dayOfWeek);
+		if (day != null) {
+			DayVersion d = _days[day.ordinal()];
+			if (d._shifts.length > 0) {
+				listShiftString.add(_shopName);
+				listShiftString.add(d._day + " " + d._startTime + "-" + d._endTime);
+				for (ShiftVersion shift : d._shifts) {
+					listShiftString.add(shift.toRosterLine(_staffTable));
+				}
+			}
+		}
+		return listShiftString;
+	}
+	
+	/**
+	 * Retrieves the roster for a specified worker (NOT manager), in the same format as Roster.getRosterForWorker
+	 * @param workerName in format "Givenname FamilyName"
+	 * @return list of shifts of a worker in String format
+	 */
+	public List<String> getRosterForWorker(String workerName) {
+		return getShiftsFor(workerName, false);
+	}
+	
+	/**
+	 * Retrieves the shifts managed by the staff member, in the same format as Roster.getShiftsManagedBy
+	 * @param managerName in format "Givenname FamilyName"
+	 * @return list of shifts managed by the staff member in String format
+	 */
+	public List<String> getShiftsManagedBy(String managerName) {
+		return getShiftsFor(managerName, true);
+	}
+	
+	private List<String> getShiftsFor(String name, boolean isManager) {
+		List<String> shiftListString = new ArrayList<>();
+		StaffWorker staff = findStaff(StaffWorker.toNameKey(name));
+		if (staff == null) {
+			return shiftListString;
+		}
+		int id = staff.getId();
+		for (DayVersion d : _days) {					//days and shifts are in chronological order
+			for (ShiftVersion shift : d._shifts) {
+				if (isManager ? shift._manager == id : shift.hasWorker(id)) {
+					shiftListString.add(shift.toString());
+				}
+			}
+		}
+		if (!shiftListString.isEmpty()) {
+			shiftListString.add(0, staff.formatName());	//1st entry is the name in format "FamilyName, GivenName"
+		}
+		return shiftListString;
+	}
+	
+	/**
+	 * Finds a staff member registered in this version by name (see class comment)
+	 * @param nameKey see StaffWorker.toNameKey
+	 * @return the staff member, or null if not registered when this version was made
+	 */
+	private StaffWorker findStaff(String nameKey) {
+		StaffWorker staff = _staffTable.find(nameKey);
+		return staff != null && staff.getId() < _staff.length ? staff : null;
+	}
+	
+	/**
+	 * Streams the registered staff, in the same format and order as getRegisteredStaff
+	 * @return names made as the stream reaches them
+	 */
+	public Stream<String> streamRegisteredStaff() {
+		return Arrays.stream(_staff).map(StaffWorker::getFullName);
+	}
+	
+	/**
+	 * Streams the unassigned staff, in the same format and order as getUnassignedStaff. The staff assigned to
+	 * shifts are worked out when the stream is made.
+	 * @return names made as the stream reaches them
+	 */
+	public Stream<String> streamUnassignedStaff() {
+		boolean[] assigned = assignedStaff();
+		return Arrays.stream(_staff).filter(s -> !assigned[s.getId()]).map(StaffWorker::getFullName);
+	}
+	
+	/**
+	 * Streams the shifts without managers, in the same format and order as shiftsWithoutManagers
+	 * @return shifts in chronological order
+	 */
+	public Stream<String> streamShiftsWithoutManagers() {
+		return shiftsWithStream(Status.WITHOUT_MANAGER);
+	}
+	
+	/**
+	 * Streams the understaffed shifts, in the same format and order as understaffedShifts
+	 * @return shifts in chronological order
+	 */
+	public Stream<String> streamUnderstaffedShifts() {
+		return shiftsWithStream(Status.UNDERSTAFFED);
+	}
+	
+	/**
+	 * Streams the overstaffed shifts, in the same format and order as overstaffedShifts
+	 * @return shifts in chronological order
+	 */
+	public Stream<String> streamOverstaffedShifts() {
+		return shiftsWithStream(Status.OVERSTAFFED);
+	}
+	
+	/**
+	 * Streams the roster for a specified day, in the same format as getRosterForDay. Each shift's line is only
+	 * made when the stream reaches it.
+	 * @param dayOfWeek must match one of the 7 days
+	 * @return lines of the roster, or an empty stream if the day is invalid or has no shifts
+	 */
+	public Stream<String> streamRosterForDay(String dayOfWeek) {
+		DayOfWeek day = DayOfWeek.fromString(dayOfWeek);
+		if (day == null || _days[day.ordinal()]._shifts.length == 0) {
+			return Stream.empty();
+		}
+		DayVersion d = _days[day.ordinal()];
+		return Stream.concat(Stream.of(_shopName, d._day + " " + d._startTime + "-" + d._endTime),
+				Arrays.stream(d._shifts).map(shift -> shift.toRosterLine(_staffTable)));
+	}
+	
+	private Stream<String> shiftsWithStream(Status status) {
+		return Arrays.stream(_days).flatMap(d -> Arrays.stream(d._statusLists[status.ordinal()]))
+				.map(ShiftVersion::toString);
+	}
+	
+	/**
+	 * Retrieves a page of the registered staff, in the same format and order as getRegisteredStaff
+	 * @param pageToken null for the first page, otherwise the token returned with the page before
+	 * @param limit most names on the page (at least 1)
+	 * @return page of names
+	 * @throws IllegalArgumentException if the token was not returned by this query, or limit is less than 1
+	 */
+	public RosterPage getRegisteredStaff(String pageToken, int limit) {
+		return staffPage(pageToken, limit, null);
+	}
+	
+	/**
+	 * Retrieves a page of the unassigned staff, in the same format and order as getUnassignedStaff. The staff
+	 * assigned to shifts are worked out for each page, by going through every shift once.
+	 * @param pageToken null for the first page, otherwise the token returned with the page before
+	 * @param limit most names on the page (at least 1)
+	 * @return page of names
+	 * @throws IllegalArgumentException if the token was not returned by this query, or limit is less than 1
+	 */
+	public RosterPage getUnassignedStaff(String pageToken, int limit) {
+		return staffPage(pageToken, limit, assignedStaff());
+	}
+	
+	/**
+	 * Retrieves a page of the shifts without managers, in the same format and order as shiftsWithoutManagers
+	 * @param pageToken null for the first page, otherwise the token returned with the page before
+	 * @param limit most shifts on the page (at least 1)
+	 * @return page of shifts
+	 * @throws IllegalArgumentException if the token was not returned by this query, or limit is less than 1
+	 */
+	public RosterPage shiftsWithoutManagers(String pageToken, int limit) {
+		return shiftPage(pageToken, limit, Status.WITHOUT_MANAGER);
+	}
+	
+	/**
+	 * Retrieves a page of the understaffed shifts, in the same format and order as understaffedShifts
+	 * @param pageToken null for the first page, otherwise the token returned with the page before
+	 * @param limit most shifts on the page (at least 1)
+	 * @return page of shifts
+	 * @throws IllegalArgumentException if the token was not returned by this query, or limit is less than 1
+	 */
+	public RosterPage understaffedShifts(String pageToken, int limit) {
+		return shiftPage(pageToken, limit, Status.UNDERSTAFFED);
+	}
+	
+	/**
+	 * Retrieves a page of the overstaffed shifts, in the same format and order as overstaffedShifts
+	 * @param pageToken null for the first page, otherwise the token returned with the page before
+	 * @param limit most shifts on the page (at least 1)
+	 * @return page of shifts
+	 * @throws IllegalArgumentException if the token was not returned by this query, or limit is less than 1
+	 */
+	public RosterPage overstaffedShifts(String pageToken, int limit) {
+		return shiftPage(pageToken, limit, Status.OVERSTAFFED);
+	}
+	
+	/**
+	 * @param assigned staff to leave out by id (see assignedStaff), or null to include every staff member
+	 */
+	private RosterPage staffPage(String pageToken, int limit, boolean[] assigned) {
+		checkLimit(limit);
+		int i = 0;
+		if (pageToken != null) {								//token is the name of the first staff on the page
+			String name = decodeToken(pageToken, STAFF_TOKEN);
+			int split = name.indexOf('\n');
+			if (split < 0) {
+				throw new IllegalArgumentException("Invalid page token");
+			}
+			i = firstStaffFrom(name.substring(0, split), name.substring(split + 1));
+		}
+		List<String> names = new ArrayList<>();
+		for (; i < _staff.length; i++) {
+			StaffWorker s = _staff[i];
+			if (assigned != null && assigned[s.getId()]) {
+				continue;
+			}
+			if (names.size() == limit) {
+				return new RosterPage(names, encodeToken(STAFF_TOKEN, s.getFamilyName() + "\n" + s.getGivenName()));
+			}
+			names.add(s.getFullName());
+		}
+		return new RosterPage(names, null);
+	}
+	
+	/**
+	 * Binary search for the first staff member that is not before the given name in alphabetical order (see
+	 * StaffWorker.compareTo)
+	 * @return index in _staff
+	 */
+	private int firstStaffFrom(String familyName, String givenName) {
+		int low = 0;
+		int high = _staff.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int compare = _staff[mid].getFamilyName().compareTo(familyName);
+			if (compare == 0) {
+				compare = _staff[mid].getGivenName().compareTo(givenName);
+			}
+			if (compare < 0) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+	
+	/**
+	 * Retrieves a page of one of the staffing status lists, starting by binary search in the day of the token
+	 */
+	private RosterPage shiftPage(String pageToken, int limit, Status status) {
+		checkLimit(limit);
+		int from = 0;											//see Shift.getChronologicalKey
+		if (pageToken != null) {								//token is the key of the first shift on the page
+			try {
+				from = Integer.parseInt(decodeToken(pageToken, SHIFT_TOKEN));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid page token", e);
+			}
+			if (from < 0 || from >= _days.length * TimeOfDay.MINUTES_PER_DAY) {
+				throw new IllegalArgumentException("Invalid page token");
+			}
+		}
+		List<String> shifts = new ArrayList<>();
+		int firstDay = from / TimeOfDay.MINUTES_PER_DAY;
+		for (int day = firstDay; day < _days.length; day++) {
+			ShiftVersion[] dayShifts = _days[day]._statusLists[status.ordinal()];
+			int i = 0;
+			if (day == firstDay) {
+				i = indexOf(dayShifts, from % TimeOfDay.MINUTES_PER_DAY);
+				i = i < 0 ? -(i + 1) : i;
+			}
+			for (; i < dayShifts.length; i++) {
+				if (shifts.size() == limit) {
+					int key = day * TimeOfDay.MINUTES_PER_DAY + dayShifts[i].getStartMinute();
+					return new RosterPage(shifts, encodeToken(SHIFT_TOKEN, Integer.toString(key)));
+				}
+				shifts.add(dayShifts[i].toString());
+			}
+		}
+		return new RosterPage(shifts, null);
+	}
+	
+	private static void checkLimit(int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Page limit must be at least 1");
+		}
+	}
+	
+	private static String encodeToken(char kind, String value) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString((kind + value).getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * @return the value encoded in the token
+	 * @throws IllegalArgumentException if the token was not made by encodeToken for the same kind of query
+	 */
+	private static String decodeToken(String token, char kind) {
+		String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);	//throws if not Base64
+		if (decoded.isEmpty() || decoded.charAt(0) != kind) {
+			throw new IllegalArgumentException("Invalid page token");
+		}
+		return decoded.substring(1);
+	}
+	
+	/**
+	 * Writes the roster for the whole week to out, in the same format as Roster.displayRoster(Appendable)
+	 * @param out where the roster is written to
+	 * @throws IOException if out cannot be written to
+	 */
+	public void displayRoster(Appendable out) throws IOException {
+		out.append(_shopName).append('\n');
+		for (DayVersion d : _days) {
+			if (d._startTime != null) {								//working hours are set
+				out.append(d._day.toString()).append(' ').append(d._startTime.toString()).append('-')
+						.append(d._endTime.toString()).append('\n');
+				for (ShiftVersion shift : d._shifts) {
+					out.append('\t');
+					Shift.appendRosterLine(out, shift._day, shift._startTime, shift._endTime, _staffTable,
+							shift._manager, shift._workers);
+					out.append('\n');
+				}
+			}
+		}
+	}
+	
+	public String getShopName() {
+		return _shopName;
+	}
+	
+	/**
+	 * Retrieves the registered staff, used when saving the roster (see RosterSnapshotFile)
+	 * @return staff in alphabetical order (must not be modified)
+	 */
+	StaffWorker[] getStaff() {
+		return _staff;
+	}
+	
+	/**
+	 * @return the roster's staff, to look up the ids used by each ShiftVersion
+	 */
+	StaffTable getStaffTable() {
+		return _staffTable;
+	}
+	
+	DayVersion getDay(DayOfWeek day) {
+		return _days[day.ordinal()];
+	}
+	
+	/**
+	 * Binary search for the shift starting at the given minute
+	 * @param shifts of one day, in chronological order
+	 * @param startMinute
+	 * @return index of the shift, or (-(insertion point) - 1) if there is no shift starting at that minute
+	 */
+	private static int indexOf(ShiftVersion[] shifts, int startMinute) {
+		int low = 0;
+		int high = shifts.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midStart = shifts[mid]._startTime.getMinute();
+			if (midStart < startMinute) {
+				low = mid + 1;
+			} else if (midStart > startMinute) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+	
+	/**
+	 * The staffing status lists kept for each day (see DayVersion)
+	 */
+	private enum Status {
+		UNDERSTAFFED, OVERSTAFFED, WITHOUT_MANAGER;
+		
+		private boolean matches(ShiftVersion shift) {
+			switch (this) {
+			case UNDERSTAFFED :
+				return shift._workers.length < shift._minimumWorkers;
+			case OVERSTAFFED :
+				return shift._workers.length > shift._minimumWorkers;
+			default :
+				return shift._manager == Shift.NO_STAFF;
+			}
+		}
+	}
+	
+	/**
+	 * A version of a Day: its working hours and its shifts, in chronological order, and its shifts by staffing 
+	 * status
+	 */
+	static final class DayVersion {
+		private static final ShiftVersion[][] NO_STATUS_LISTS = new ShiftVersion[Status.values().length][0];
+		private final DayOfWeek _day;
+		private final TimeOfDay _startTime;
+		private final TimeOfDay _endTime;
+		private final ShiftVersion[] _shifts;
+		private final ShiftVersion[][] _statusLists;		//indexed by Status ordinal, each in chronological order
+		
+		private DayVersion(DayOfWeek day, TimeOfDay startTime, TimeOfDay endTime, ShiftVersion[] shifts,
+				ShiftVersion[][] statusLists) {
+			_day = day;
+			_startTime = startTime;
+			_endTime = endTime;
+			_shifts = shifts;
+			_statusLists = statusLists;
+		}
+		
+		private int indexOf(int startMinute) {
+			return RosterSnapshot.indexOf(_shifts, startMinute);
+		}
+		
+		TimeOfDay getStartTime() {
+			return _startTime;
+		}
+		
+		TimeOfDay getEndTime() {
+			return _endTime;
+		}
+		
+		/**
+		 * @return shifts in chronological order (must not be modified)
+		 */
+		ShiftVersion[] getShifts() {
+			return _shifts;
+		}
+	}
+	
+	/**
+	 * A version of a Shift: its times, minimum workers, manager and workers
+	 */
+	static final class ShiftVersion {
+		private final DayOfWeek _day;
+		private final TimeOfDay _startTime;
+		private final TimeOfDay _endTime;
+		private final int _minimumWorkers;
+		private final int _manager;						//id, or Shift.NO_STAFF
+		private final int[] _workers;					//ids in alphabetical order, shared with the Shift
+		
+		private ShiftVersion(Shift shift) {
+			_day = shift.getDayOfWeek();
+			_startTime = shift.getStartTime();
+			_endTime = shift.getEndTime();
+			_minimumWorkers = shift.getMinimumWorkers();
+			_manager = shift.getManagerId();
+			_workers = shift.getWorkerIds();
+		}
+		
+		int getStartMinute() {
+			return _startTime.getMinute();
+		}
+		
+		int getEndMinute() {
+			return _endTime.getMinute();
+		}
+		
+		int getMinimumWorkers() {
+			return _minimumWorkers;
+		}
+		
+		/**
+		 * @return id of the manager, or Shift.NO_STAFF if no manager is assigned
+		 */
+		int getManager() {
+			return _manager;
+		}
+		
+		/**
+		 * @return ids of the workers in alphabetical order (must not be modified)
+		 */
+		int[] getWorkers() {
+			return _workers;
+		}
+		
+		private boolean hasWorker(int id) {
+			for (int w : _workers) {
+				if (w == id) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		private String toRosterLine(StaffTable staffTable) {
+			StringBuilder line = new StringBuilder();
+			try {
+				Shift.appendRosterLine(line, _day, _startTime, _endTime, staffTable, _manager, _workers);
+			} catch (IOException e) {			//not possible when writing to a StringBuilder
+				throw new UncheckedIOException(e);
+			}
+			return line.toString();
+		}
+		
+		/**
+		 * Retrieves string formatted as per requirements dayOfWeek[startTime-endTime] e.g. Monday[00:00-23:59]
+		 */
+		@Override
+		public String toString() {
+			return _day + "[" + _startTime + "-" + _endTime + "]";
+		}
+	}
+}
@@ -0,0 +1,260 @@
+package shiftman.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * RosterSnapshotFile saves a whole roster to a file in a compact binary format, and loads it again.
+ * This class has the following functionality:
+ * 		- saves a RosterSnapshot, so the roster does not need to be locked while it is saved
+ * 		- replaces the file only once the new copy is completely on disk, so a crash never leaves a partial copy
+ * 		- loads the file by mapping it into memory (FileChannel.map) and reading numbers straight from it. Times
+ * 		  are saved as minutes and staff are referred to by number, so the only text read is the staff names,
+ * 		  and each different name is read once.
+ *
+ * The file is (all numbers big-endian):
+ * 		magic (int), version (int)
+ * 		shop name (text)
+ * 		name table: count (int), then each different given or family name (text)
+ * 		staff: count (int), then for each staff member in alphabetical order its given and family name (int
+ * 			   indexes in the name table). A staff member's id is its position in this list.
+ * 		working hours: for each day from Monday to Sunday, start and end minute (short, -1 if not set)
+ * 		shifts: count (int), then for each shift in chronological order: day (byte), start and end minute (short),
+ * 				minimum workers (int), manager id (int, -1 if none), number of workers (int)
+ * 		workers: count (int), then the ids of every shift's workers (int), in the same order as the shifts
+ * 		CRC32 of everything before it (int)
+ * Text is its length in bytes (int) followed by UTF-8 bytes.
+ * @author Martin Tiangco
+ *
+ */
+public final class RosterSnapshotFile {
+	private static final int MAGIC = 0x53484D52;		//"SHMR"
+	private static final int VERSION = 2;
+	private static final int NONE = -1;
+	
+	private RosterSnapshotFile() {
+	}
+	
+	/**
+	 * Saves a version of a roster to a file, replacing the file if it exists
+	 * @param snapshot
+	 * @param file
+	 * @throws IOException if the file cannot be written, or a staff member is assigned but not in the snapshot
+	 */
+	public static void write(RosterSnapshot snapshot, Path file) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeText(out, snapshot.getShopName());
+	
+		StaffWorker[] staff = snapshot.getStaff();
+		Map<String, Integer> names = new HashMap<>();		//name table, in the order names were first used
+		int[] nameIds = new int[staff.length * 2];
+		for (int i = 0; i < staff.length; i++) {
+			nameIds[2 * i] = nameId(names, staff[i].getGivenName());
+			nameIds[2 * i + 1] = nameId(names, staff[i].getFamilyName());
+		}
+		String[] nameTable = new String[names.size()];
+		for (Map.Entry<String, Integer> e : names.entrySet()) {
+			nameTable[e.getValue()] = e.getKey();
+		}
+		out.writeInt(nameTable.length);
+		for (String name : nameTable) {
+			writeText(out, name);
+		}
+		out.writeInt(staff.length);
+		for (int id : nameIds) {
+			out.writeInt(id);
+		}
+	
+		int[] positions = new int[snapshot.getStaffTable().size()];	//staff id -> position in the file, NONE if not saved
+		Arrays.fill(positions, NONE);
+		for (int i = 0; i < staff.length; i++) {
+			positions[staff[i].getId()] = i;
+		}
+		int shiftCount = 0;
+		int workerCount = 0;
+		for (DayOfWeek d : DayOfWeek.values()) {
+			RosterSnapshot.DayVersion day = snapshot.getDay(d);
+			out.writeShort(day.getStartTime() == null ? NONE : day.getStartTime().getMinute());
+			out.writeShort(day.getEndTime() == null ? NONE : day.getEndTime().getMinute());
+			for (RosterSnapshot.ShiftVersion shift : day.getShifts()) {
+				shiftCount++;
+				workerCount += shift.getWorkers().length;
+			}
+		}
+		out.writeInt(shiftCount);
+		for (DayOfWeek d : DayOfWeek.values()) {
+			for (RosterSnapshot.ShiftVersion shift : snapshot.getDay(d).getShifts()) {
+				out.writeByte(d.ordinal());
+				out.writeShort(shift.getStartMinute());
+				out.writeShort(shift.getEndMinute());
+				out.writeInt(shift.getMinimumWorkers());
+				int manager = shift.getManager();
+				out.writeInt(manager == Shift.NO_STAFF ? NONE : staffId(positions, snapshot, manager));
+				out.writeInt(shift.getWorkers().length);
+			}
+		}
+		out.writeInt(workerCount);
+		for (DayOfWeek d : DayOfWeek.values()) {
+			for (RosterSnapshot.ShiftVersion shift : snapshot.getDay(d).getShifts()) {
+				for (int id : shift.getWorkers()) {
+					out.writeInt(staffId(positions, snapshot, id));
+				}
+			}
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeInt((int) crc.getValue());
+		out.flush();
+	
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * Loads a roster from a file saved by write()
+	 * @param file
+	 * @return the roster, with the same working hours, shifts, staff and assignments as when it was saved
+	 * @throws IOException if the file cannot be read, or is not a saved roster, or is damaged
+	 */
+	public static Roster read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < 12 || size > Integer.MAX_VALUE) {
+				throw new IOException(file + " is not a saved roster");
+			}
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+				throw new IOException(file + " is not a saved roster");
+			}
+			CRC32 crc = new CRC32();
+			crc.update(in.duplicate().position(0).limit((int) size - 4));
+			if (in.getInt((int) size - 4) != (int) crc.getValue()) {
+				throw new IOException(file + " is damaged");
+			}
+			in.limit((int) size - 4);
+			try {
+				return read(in);
+			} catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+				throw new IOException(file + " is damaged", e);
+			}
+		}
+	}
+	
+	private static Roster read(ByteBuffer in) throws IOException {
+		RosterLoader loader;
+		try {
+			loader = new RosterLoader(readText(in));
+		} catch (RosterException e) {					//only valid names are saved
+			throw new IOException("Saved roster has an invalid shop name", e);
+		}
+	
+		String[] nameTable = new String[in.getInt()];
+		for (int i = 0; i < nameTable.length; i++) {
+			nameTable[i] = readText(in);
+		}
+		StaffWorker[] staff = new StaffWorker[in.getInt()];
+		for (int i = 0; i < staff.length; i++) {
+			String givenName = nameTable[in.getInt()];
+			staff[i] = loader.staff(givenName, nameTable[in.getInt()]);
+		}
+	
+		for (DayOfWeek d : DayOfWeek.values()) {
+			short start = in.getShort();
+			short end = in.getShort();
+			if (start != NONE) {
+				loader.workingHours(d, time(start), time(end));
+			}
+		}
+	
+		Shift[] shifts = new Shift[in.getInt()];
+		int[] workerCounts = new int[shifts.length];
+		for (int i = 0; i < shifts.length; i++) {
+			DayOfWeek day = DayOfWeek.fromOrdinal(in.get());
+			if (day == null) {
+				throw new IOException("Saved roster has an invalid day");
+			}
+			shifts[i] = loader.shift(day, time(in.getShort()), time(in.getShort()), in.getInt());
+			int manager = in.getInt();
+			if (manager != NONE) {
+				loader.assign(shifts[i], staff[manager], true);
+			}
+			workerCounts[i] = in.getInt();
+		}
+	
+		int[] workers = new int[in.getInt()];
+		in.asIntBuffer().get(workers);						//copies every id at once
+		int next = 0;
+		for (int i = 0; i < shifts.length; i++) {
+			for (int j = 0; j < workerCounts[i]; j++) {
+				loader.assign(shifts[i], staff[workers[next++]], false);
+			}
+		}
+		return loader.finish();
+	}
+	
+	private static int nameId(Map<String, Integer> names, String name) {
+		Integer id = names.get(name);
+		if (id == null) {
+			id = names.size();
+			names.put(name, id);
+		}
+		return id;
+	}
+	
+	private static int staffId(int[] positions, RosterSnapshot snapshot, int id) throws IOException {
+		if (id >= positions.length || positions[id] == NONE) {		//every assigned staff member is registered first
+			throw new IOException(snapshot.getStaffTable().get(id).getFullName()
+					+ " is assigned to a shift but not registered");
+		}
+		return positions[id];
+	}
+	
+	private static TimeOfDay time(int minute) throws IOException {
+		TimeOfDay time = TimeOfDay.of(minute);
+		if (time == null) {
+			throw new IOException("Saved roster has an invalid time");
+		}
+		return time;
+	}
+	
+	private static void writeText(DataOutputStream out, String text) throws IOException {
+		byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(utf8.length);
+		out.write(utf8);
+	}
+	
+	private static String readText(ByteBuffer in) throws IOException {
+		int length = in.getInt();
+		if (length < 0 || length > in.remaining()) {				//checked before the text is read into memory
+			throw new IOException("Saved roster has an invalid text length " + length);
+		}
+		byte[] utf8 = new byte[length];
+		in.get(utf8);
+		return new String(utf8, StandardCharsets.UTF_8);
+	}
+}
@@ -1,5 +1,7 @@
 package shiftman.server;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -8,21 +10,30 @@ import java.util.List;
  * Shift refers to a single shift assigned to a day with the specified hours
  * This class has the following functionality:
  * 		- assigns manager to shift for access used in getRosterForDay
- * 		- formats manager name to "FamilyName, Givenname" as per requirements
- * 		- adds staff member to List<StaffWorker> to allow for access to all StaffWorkers assigned to a shift
+ * 		- writes the line describing the shift in a day's roster to any Appendable
+ * 		- keeps the manager and workers as staff ids (see StaffTable), with the workers in an int array in
+ * 		  alphabetical order of their names. Adding a worker that is already on the shift does nothing. Workers are
+ * 		  found by binary search, and added or removed by copying the array.
+ * 		- names are only looked up in the StaffTable and formatted when a query writes them out
+ * The array of workers is never changed once it is set (a new one replaces it), so a reader that is not holding
+ * the lock (see Roster.read) always sees a whole array, and RosterSnapshot can keep the same array.
  * @author Martin Tiangco
  *
  */
 
 public class Shift implements Comparable<Shift> {
 	//fields
-	private String _dayOfWeek;
-	private String _startTime;
-	private String _endTime;
+	static final int NO_STAFF = -1;				//id of the manager when there is none
+	private static final int[] NO_WORKERS = new int[0];
+	private final DayOfWeek _dayOfWeek;
+	private final TimeOfDay _startTime;
+	private final TimeOfDay _endTime;
+	private final int _chronologicalKey;		//day ordinal * minutes per day + start minute, used by compareTo
+	private final String _name;					//dayOfWeek[startTime-endTime], see toString
+	private final StaffTable _staffTable;		//finds the staff for each id
 	private int _minimumWorkers;
-	private String _manager;
-	private List<StaffWorker> _staffWorkerList = new ArrayList<>();
-	private List<String> _staffWorkerListString = new ArrayList<>();
+	private int _manager = NO_STAFF;
+	private int[] _workers = NO_WORKERS;		//ids in alphabetical order of name, replaced rather than changed
 	
 	/**
 	 * Creates a Shift object based on the parameters
@@ -30,47 +41,215 @@ public class Shift implements Comparable<Shift> {
 	 * @param startTime
 	 * @param endTime
 	 * @param minimumWorkers	- this is converted into integers
+	 * @param staffTable the roster's staff, which the shift's staff must be registered in
 	 */
-	public Shift(String dayOfWeek, String startTime, String endTime, String minimumWorkers) {
+	Shift(DayOfWeek dayOfWeek, TimeOfDay startTime, TimeOfDay endTime, String minimumWorkers, StaffTable staffTable) {
+		this(dayOfWeek, startTime, endTime, Integer.parseInt(minimumWorkers), staffTable);
+	}
+	
+	/**
+	 * Creates a Shift object based on the parameters, with the minimum workers already converted
+	 * @param dayOfWeek
+	 * @param startTime
+	 * @param endTime
+	 * @param minimumWorkers
+	 * @param staffTable the roster's staff, which the shift's staff must be registered in
+	 */
+	Shift(DayOfWeek dayOfWeek, TimeOfDay startTime, TimeOfDay endTime, int minimumWorkers, StaffTable staffTable) {
 		_dayOfWeek = dayOfWeek;
 		_startTime = startTime;
 		_endTime = endTime;
-		_minimumWorkers = Integer.parseInt(minimumWorkers);
+		_minimumWorkers = minimumWorkers;
+		_staffTable = staffTable;
+		_chronologicalKey = dayOfWeek.ordinal() * TimeOfDay.MINUTES_PER_DAY + startTime.getMinute();
+		_name = dayOfWeek + "[" + startTime + "-" + endTime + "]";
 	}
 	
-	public void assignManager(String name) {
-		_manager = name;
+	/**
+	 * Assigns the manager of the shift
+	 * @param manager
+	 */
+	public void assignManager(StaffWorker manager) {
+		_manager = manager.getId();
 	}
 	
 	/**
-	 * Adds staff member to list of staff in both List<StaffWorker> and List<String> formats
+	 * Removes the manager of the shift, if it is the given staff member
+	 * @param manager
+	 * @return true if they were the manager
+	 */
+	public boolean removeManager(StaffWorker manager) {
+		if (_manager != manager.getId()) {
+			return false;
+		}
+		_manager = NO_STAFF;
+		return true;
+	}
+	
+	/**
+	 * Adds staff member to the workers of the shift
 	 * @param name of StaffWorker
+	 * @return false if they were already a worker on the shift (nothing is changed)
+	 */
+	public boolean addStaffMemberToList(StaffWorker name) {
+		int index = indexOf(name);
+		if (index >= 0) {
+			return false;
+		}
+		index = -(index + 1);										//where the worker belongs
+		int[] workers = new int[_workers.length + 1];
+		System.arraycopy(_workers, 0, workers, 0, index);
+		workers[index] = name.getId();
+		System.arraycopy(_workers, index, workers, index + 1, _workers.length - index);
+		_workers = workers;
+		return true;
+	}
+	
+	/**
+	 * Removes staff member from the workers of the shift
+	 * @param name of StaffWorker
+	 * @return false if they were not a worker on the shift
+	 */
+	public boolean removeStaffMember(StaffWorker name) {
+		int index = indexOf(name);
+		if (index < 0) {
+			return false;
+		}
+		int[] workers = new int[_workers.length - 1];
+		System.arraycopy(_workers, 0, workers, 0, index);
+		System.arraycopy(_workers, index + 1, workers, index, workers.length - index);
+		_workers = workers.length == 0 ? NO_WORKERS : workers;
+		return true;
+	}
+	
+	/**
+	 * Binary search for a worker, comparing names in alphabetical order
+	 * @param staff
+	 * @return index in _workers, or (-(insertion point) - 1) if they are not a worker on the shift
 	 */
-	public void addStaffMemberToList(StaffWorker name) {
-		_staffWorkerList.add(name);
-		Collections.sort(_staffWorkerList);
-		_staffWorkerListString.clear();          //clears list to remove duplication 
-		for (StaffWorker s : _staffWorkerList) { //convert to String
-			_staffWorkerListString.add(s.getFullName());
+	private int indexOf(StaffWorker staff) {
+		int[] workers = _workers;
+		int low = 0;
+		int high = workers.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (workers[mid] == staff.getId()) {
+				return mid;
+			}
+			int compare = _staffTable.get(workers[mid]).compareTo(staff);	//never 0, registered names are different
+			if (compare < 0) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
 		}
+		return -(low + 1);
+	}
+	
+	/**
+	 * Adds staff member to the workers of the shift, used when loading a saved roster (see RosterLoader)
+	 * @param staff
+	 */
+	void loadStaffMember(StaffWorker staff) {
+		addStaffMemberToList(staff);
 	}
 	
 	public int getMinimumWorkers() {
 		return _minimumWorkers;
 	}
 	
+	/**
+	 * Retrieves the manager's name in format "Givenname FamilyName"
+	 * @return manager name, or null if there is no manager
+	 */
 	public String getManager() {
+		StaffWorker manager = getManagerStaff();
+		return manager == null ? null : manager.getFullName();
+	}
+	
+	/**
+	 * @return the manager, or null if there is no manager
+	 */
+	public StaffWorker getManagerStaff() {
+		int manager = _manager;
+		return manager == NO_STAFF ? null : _staffTable.get(manager);
+	}
+	
+	/**
+	 * @return id of the manager, or NO_STAFF if there is no manager
+	 */
+	int getManagerId() {
 		return _manager;
 	}
 	
 	/**
-	 * Formats the manager's name in "FamilyName, Givenname" as per requirements
-	 * @return formatted string of manager name
+	 * Retrieves the manager's name in "FamilyName, Givenname" as per requirements
+	 * @return formatted string of manager name, or null if there is no manager
 	 */
 	public String getManagerFormatted() {
-		String FamilyName = _manager.substring(_manager.indexOf(" ") + 1);
-		String GivenName = _manager.substring(0, _manager.indexOf(" "));
-		return FamilyName + ", " + GivenName;
+		StaffWorker manager = getManagerStaff();
+		return manager == null ? null : manager.formatName();
+	}
+	
+	/**
+	 * Writes the line describing this shift in a day's roster, with the format
+	 * dayOfWeek[startTime-endTime] Manager:FamilyName, Givenname [Worker List]
+	 * @param out where the line is written to
+	 * @throws IOException if out cannot be written to
+	 */
+	public void appendRosterLine(Appendable out) throws IOException {
+		appendRosterLine(out, _dayOfWeek, _startTime, _endTime, _staffTable, _manager, _workers);
+	}
+	
+	/**
+	 * Writes the line describing a shift in a day's roster (see appendRosterLine(Appendable)), writing each name
+	 * straight from the StaffTable. Also used by RosterSnapshot, which keeps its own copy of each shift.
+	 * @param out where the line is written to
+	 * @param dayOfWeek
+	 * @param startTime
+	 * @param endTime
+	 * @param staffTable
+	 * @param manager id of the manager, or NO_STAFF if there is no manager
+	 * @param workers ids of the workers, in alphabetical order
+	 * @throws IOException if out cannot be written to
+	 */
+	static void appendRosterLine(Appendable out, DayOfWeek dayOfWeek, TimeOfDay startTime, TimeOfDay endTime, 
+			StaffTable staffTable, int manager, int[] workers) throws IOException {
+		out.append(dayOfWeek.toString()).append('[').append(startTime.toString()).append('-')
+				.append(endTime.toString()).append(']');
+		if (manager == NO_STAFF) {
+			out.append(" [No manager assigned] ");
+		} else {
+			StaffWorker m = staffTable.get(manager);
+			out.append(" Manager:").append(m.getFamilyName()).append(", ").append(m.getGivenName()).append(' ');
+		}
+		if (workers.length == 0) {
+			out.append("[No workers assigned]");
+		} else {
+			out.append('[');
+			for (int i = 0; i < workers.length; i++) {
+				if (i > 0) {
+					out.append(", ");
+				}
+				StaffWorker w = staffTable.get(workers[i]);
+				out.append(w.getGivenName()).append(' ').append(w.getFamilyName());
+			}
+			out.append(']');
+		}
+	}
+	
+	/**
+	 * Retrieves the line describing this shift in a day's roster (see appendRosterLine)
+	 * @return formatted line
+	 */
+	public String toRosterLine() {
+		StringBuilder line = new StringBuilder();
+		try {
+			appendRosterLine(line);
+		} catch (IOException e) {			//not possible when writing to a StringBuilder
+			throw new UncheckedIOException(e);
+		}
+		return line.toString();
 	}
 
 	/**
@@ -78,59 +257,101 @@ public class Shift implements Comparable<Shift> {
 	 */
 	@Override
 	public int compareTo(Shift other) {
-		int thisOrder = 0;
-		int otherOrder = 0;
-		int compare = 0;
-		for (DayOfWeek day : DayOfWeek.values()) {									//compare order of days using enum
-			if (this._dayOfWeek.equals(day.toString())) {
-				thisOrder = day.getOrder(); 										//gets order of "this" day
-			}
-			if (other._dayOfWeek.equals(day.toString())) {
-				otherOrder = day.getOrder(); 										//gets order of "other" day
-			}
-		}
-		if (thisOrder == otherOrder) {												//compare orders
-			DateTime datetime1 = new DateTime(this._startTime);
-			DateTime datetime2 = new DateTime(other._startTime);
-			compare = datetime1.compareStart(datetime2);							//compare start time
-		} else if (thisOrder < otherOrder) {
-			compare = -1; 
-		} 
-		else {
-			compare = 1; 
-		}
-		return compare;
+		return Integer.compare(_chronologicalKey, other._chronologicalKey);		//order of days, then start time
+	}
+	
+	/**
+	 * @return number of workers on the shift
+	 */
+	public int getNumberOfWorkers() {
+		return _workers.length;
+	}
+	
+	/**
+	 * Retrieves the ids of the workers on the shift (see StaffTable)
+	 * @return ids in alphabetical order of name (must not be modified, and is never changed by the shift)
+	 */
+	int[] getWorkerIds() {
+		return _workers;
 	}
 	
 	/**
-	 * Retrieves the list of StaffWorker in StaffWorker format
-	 * @return List<StaffWorker> of StaffWorker
+	 * Retrieves the workers on the shift
+	 * @return new list of workers in alphabetical order
 	 */
-	public List<StaffWorker> getStaffWorkerList() {
-		return _staffWorkerList;
+	public List<StaffWorker> getStaffWorkers() {
+		int[] workers = _workers;
+		List<StaffWorker> list = new ArrayList<>(workers.length);
+		for (int id : workers) {
+			list.add(_staffTable.get(id));
+		}
+		return list;
 	}
 	
 	/**
-	 * Retrieves the lift of StaffWorker in String format
-	 * @return List<String> of StaffWorker
+	 * Retrieves the names of the workers in format "Givenname FamilyName", in alphabetical order. The names are
+	 * made each time this is called.
+	 * @return list of worker names (cannot be modified)
 	 */
 	public List<String> getStaffWorkerListString() {
-		return _staffWorkerListString;
+		int[] workers = _workers;
+		List<String> list = new ArrayList<>(workers.length);
+		for (int id : workers) {
+			list.add(_staffTable.get(id).getFullName());
+		}
+		return Collections.unmodifiableList(list);
+	}
+	
+	public DayOfWeek getDayOfWeek() {
+		return _dayOfWeek;
 	}
 	
-	public String getStartTime() {
+	public TimeOfDay getStartTime() {
 		return _startTime;
 	}
 
-	public String getEndTime() {
+	public TimeOfDay getEndTime() {
 		return _endTime;
 	}
 	
+	/**
+	 * Retrieves the start time in minutes (0 mins is 00:00)
+	 * @return start time in minutes
+	 */
+	public int getStartMinute() {
+		return _startTime.getMinute();
+	}
+	
+	/**
+	 * Retrieves the end time in minutes (the shift does not include this minute)
+	 * @return end time in minutes
+	 */
+	public int getEndMinute() {
+		return _endTime.getMinute();
+	}
+	
+	/**
+	 * Retrieves the number of minutes from the start of the week (Monday 00:00) to the start of the shift, which
+	 * orders shifts chronologically across the whole week
+	 * @return day ordinal * 1440 + start minute
+	 */
+	public int getChronologicalKey() {
+		return _chronologicalKey;
+	}
+	
+	/**
+	 * Retrieves the number of minutes from the start of the week to the end of the shift (not included)
+	 * @return day ordinal * 1440 + end minute
+	 */
+	public int getChronologicalEndKey() {
+		return _chronologicalKey - _startTime.getMinute() + _endTime.getMinute();
+	}
+	
 	/**
 	 * Retrieves string formatted as per requirements dayOfWeek[startTime-endTime] e.g. Monday[00:00-23:59]
 	 */
 	@Override
 	public String toString() {
-		return _dayOfWeek + "[" + _startTime + "-" + _endTime + "]";
+		return _name;
 	}
 }
@@ -105,6 +105,18 @@ public interface ShiftMan {
 	 */
 	public String registerStaff(String givenname, String familyName);
 	
+	/**
+	 * Request that many staff members be registered in one call. Each entry is checked in the same way
+	 * as {@link #registerStaff(String, String)}, against both the staff already registered and the
+	 * earlier entries in the same list.
+	 * @param names The names to register, each an array of <b><tt>given name</tt></b>, <b><tt>family name</tt></b>
+	 * @return The status of each entry, in the same order as the names supplied, as described in the notes.
+	 * If the request as a whole cannot be made (e.g. no roster has been created), the list contains exactly
+	 * one string describing the problem. If the staff were registered but could not be saved, each entry that
+	 * was registered has a status describing that problem instead of an empty string.
+	 */
+	public List<String> registerAllStaff(List<String[]> names);
+	
 	/**
 	 * <b>(2 Marks)</b> Request that the staff member specified by the supplied names be assigned to the shift specified by the supplied start and end times 
 	 * @param dayOfWeek The day the request applies to.
@@ -123,6 +135,20 @@ public interface ShiftMan {
 	 */
 	public String assignStaff(String dayOfWeek, String startTime, String endTime, String givenName, String familyName, boolean isManager);
 	
+	/**
+	 * Request that the staff member specified by the supplied names be removed from the shift specified by the
+	 * supplied start and end times, whether they are its manager or one of its workers.
+	 * @param dayOfWeek The day the request applies to.
+	 * @param startTime The start of the shift.
+	 * @param endTime The end of the shift.
+	 * @param givenName The given name of the staff member
+	 * @param familyName The family name of the staff member
+	 * @return The status of the request as described in the notes.
+	 * <p>Possible problems include: the value given for the day of week is invalid, the specified shift has not
+	 * been set, the specified staff member is not registered or is not assigned to the shift.
+	 */
+	public String unassignStaff(String dayOfWeek, String startTime, String endTime, String givenName, String familyName);
+	
 	/**
 	 * <b>(1 Mark)</b> Request a list of the names of all registered staff. 
 	 * 
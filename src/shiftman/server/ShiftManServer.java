@@ -1,33 +1,83 @@
 package shiftman.server;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * ShiftManServer implements all of the methods of the interface ShiftMan
  * This Class is mainly used for checking for checked exceptions.
  * ShiftManServer's methods pass the relevant parameters to the Roster class to be handled.
+ * Each ShiftManServer has its own roster, so many can be used at once (see RosterRegistry).
+ * If it is given a RosterJournal, every successful change is saved to the journal before the method returns.
  * @author Martin Tiangco
  *
  */
 
 public class ShiftManServer implements shiftman.server.ShiftMan {
 	//fields
-	private Roster _roster; 
-	private static boolean _rosterCreated = false; 	//When newRoster is called and a valid shop name is given, this will be true.
-	private static List<String> _errorCheck = new ArrayList<>(); //used in List<String> methods to return an error if new roster hasn't been called
+	private volatile Roster _roster; 
+	private volatile boolean _rosterCreated = false; 	//When newRoster is called and a valid shop name is given, this will be true.
+	//used in List<String> methods to return an error if new roster hasn't been called (cannot be modified, as it is shared)
+	private static final List<String> _errorCheck = Collections.singletonList("ERROR: no roster has been created");
+	private static final String EMPTY_NAME_ERROR = "%ERROR% --- Please provide a non-empty GivenName and/or FamilyName.";
+	private static final String DUPLICATE_STAFF_ERROR = "%ERROR% --- Staff already registered.";
+	private static final String BATCH_REJECTED_ERROR = "%ERROR% --- Batch rejected, as another command in it is invalid.";
+	private static final String STAFF_CONFLICT_ERROR = "%ERROR% --- Staff member is already assigned at that time.";
+	private static final String MINIMUM_WORKERS_ERROR = "%ERROR% --- Please provide a valid minimum number of workers.";
+	private static final String JOURNAL_ERROR = "%ERROR% --- Change was made but could not be saved.";
+	private static final String PAGE_LIMIT_ERROR = "%ERROR% --- Please provide a page limit of at least 1.";
+	private static final String SHOP_NAME_ERROR = "%ERROR% --- Shop name cannot be changed, as the roster belongs to a shop.";
+	private static final String PAGE_TOKEN_ERROR = "%ERROR% --- Please provide a page token returned by the same query.";
+	private final RosterJournal _journal;		//null if changes are not saved
 	
-	static {
-		_errorCheck.add("ERROR: no roster has been created");
+	/**
+	 * Creates a ShiftManServer that does not save its roster
+	 */
+	public ShiftManServer() {
+		_journal = null;
+	}
+	
+	/**
+	 * Creates a ShiftManServer that saves every change to its roster in the journal. If the journal already has a
+	 * roster saved in it, that roster is used as if newRoster had been called and every change made again.
+	 * @param journal
+	 */
+	public ShiftManServer(RosterJournal journal) {
+		_journal = journal;
+		Roster recovered = journal.getRecoveredRoster();
+		if (recovered != null) {
+			recovered.setJournal(journal);
+			_roster = recovered;
+			_rosterCreated = true;
+		}
 	}
 		
-	public String newRoster(String shopName) {
+	public synchronized String newRoster(String shopName) {	//one at a time, so the journal has them in the same order
+		String fixedShopName = getFixedShopName();
 		try {
-		_roster = new Roster(shopName);
+		Roster roster = new Roster(shopName);
+		if (fixedShopName != null && !fixedShopName.equals(shopName)) {
+			return SHOP_NAME_ERROR;								//the shop keeps its roster
+		}
+		if (_journal != null) {
+			Roster previous = _roster;
+			if (previous != null) {
+				previous.detachJournal();		//changes to the old roster must not follow the new roster's record
+			}
+			_journal.logNewRoster(shopName);
+			roster.setJournal(_journal);
+		}
+		_roster = roster;
 		_rosterCreated = true;
-		return "";
+		return syncJournal();
 		} catch (RosterException e) {			//if user inputs an empty or null shop name
-			_rosterCreated = false;
+			if (fixedShopName == null) {		//a shop keeps its roster
+				_rosterCreated = false;
+			}
 			return "%ERROR% --- Please provide a non-empty shop name.";
 		}
 	}
@@ -38,7 +88,7 @@ public class ShiftManServer implements shiftman.server.ShiftMan {
 		} else {
 			try {
 				_roster.setWorkingHours(dayOfWeek, startTime, endTime);
-				return "";
+				return syncJournal();
 			} catch (RosterException e) {
 				return "%ERROR% --- Please provide a valid name of day";
 			} catch (TimeException e) {	//valid means between 00:00-23:59, if startTime != endTime, if startTime is before endTime
@@ -51,11 +101,15 @@ public class ShiftManServer implements shiftman.server.ShiftMan {
 		if (_rosterCreated == true) {
 			try {
 				_roster.addShift(dayOfWeek, startTime, endTime, minimumWorkers);
-				return "";
+				return syncJournal();
 			} catch (RosterException e) {
 				return "%ERROR% --- Please provide a valid name of day";
 			} catch (TimeException e) { //valid means between 00:00-23:59, if startTime != endTime, if startTime is before endTime
 				return "%ERROR% --- Please provide a valid start and/or end time.";
+			} catch (ShiftOverlapException e) { //shifts on the same day cannot overlap
+				return "%ERROR% --- Shift overlaps with an existing shift.";
+			} catch (NumberFormatException e) { //minimum workers is not a number
+				return MINIMUM_WORKERS_ERROR;
 			}
 		} else {
 			return "%ERROR% --- Please create a new roster first.";
@@ -66,31 +120,174 @@ public class ShiftManServer implements shiftman.server.ShiftMan {
 		if (_rosterCreated == true) {
 			try {
 				_roster.registerStaff(givenname, familyName);
-				return "";
+				return syncJournal();
 			} catch (StaffException e) { //if "null" or empty names were entered as parameters
-				return "%ERROR% --- Please provide a non-empty GivenName and/or FamilyName.";
+				return EMPTY_NAME_ERROR;
 			} catch (DuplicateStaffException e) { //if there is a matching name found in the list (case insensitive)
-				return "%ERROR% --- Staff already registered.";
+				return DUPLICATE_STAFF_ERROR;
 			}
 		} else {
 			return "%ERROR% --- Please create a new roster first.";
 		}
 	}
 	
+	public List<String> registerAllStaff(List<String[]> names) {
+		if (_rosterCreated == true) {
+			List<String> results = new ArrayList<>(names.size());
+			for (Exception e : _roster.registerAllStaff(names)) {	//one entry per name, null if registered
+				if (e == null) {
+					results.add("");
+				} else if (e instanceof DuplicateStaffException) {
+					results.add(DUPLICATE_STAFF_ERROR);
+				} else {
+					results.add(EMPTY_NAME_ERROR);
+				}
+			}
+			return savedResults(results);
+		} else {
+			return _errorCheck;
+		}
+	}
+	
 	public String assignStaff(String dayOfWeek, String startTime, String endTime, String givenName, 
 			String familyName, boolean isManager) {
 		if (_rosterCreated == true) {
 			try {
 				_roster.assignStaff(dayOfWeek, startTime, endTime, givenName, familyName, isManager);
-				return "";
+				return syncJournal();
 			} catch (ShiftException e){ //must addShift first before assignShift
 				return "%ERROR% --- Specified shift has not been previously set.";
+			} catch (StaffConflictException e) { //cannot be on two shifts at once, or on the same shift twice
+				return STAFF_CONFLICT_ERROR;
 			}
 		} else {
 			return "%ERROR% --- Please create a new roster first.";
 		}
 	}
 	
+	public String unassignStaff(String dayOfWeek, String startTime, String endTime, String givenName, 
+			String familyName) {
+		if (_rosterCreated == true) {
+			try {
+				if (_roster.unassignStaff(dayOfWeek, startTime, endTime, givenName, familyName)) {
+					return syncJournal();
+				}
+				return "%ERROR% --- Staff member is not assigned to that shift.";
+			} catch (RosterException e) {
+				return "%ERROR% --- Please provide a valid name of day";
+			} catch (ShiftException e) {
+				return "%ERROR% --- Specified shift has not been previously set.";
+			}
+		} else {
+			return "%ERROR% --- Please create a new roster first.";
+		}
+	}
+	
+	/**
+	 * Makes a batch of changes to the roster all at once, or not at all. Each command is checked in the same way
+	 * as the ShiftMan method it stands for, as if the commands before it had been made.
+	 * @param commands
+	 * @return one result per command, in the same order: empty string if the batch was made, otherwise an error 
+	 * 			for each invalid command and BATCH_REJECTED_ERROR for each valid one. If the batch was made but could
+	 * 			not be saved, JOURNAL_ERROR for each command
+	 */
+	public List<String> applyBatch(List<RosterCommand> commands) {
+		if (_rosterCreated == true) {
+			List<Exception> errors = _roster.applyBatch(commands);
+			boolean applied = true;
+			for (Exception e : errors) {
+				if (e != null) {
+					applied = false;
+				}
+			}
+			List<String> results = new ArrayList<>(errors.size());
+			for (Exception e : errors) {
+				if (e == null) {
+					results.add(applied ? "" : BATCH_REJECTED_ERROR);
+				} else if (e instanceof RosterException) {
+					results.add("%ERROR% --- Please provide a valid name of day");
+				} else if (e instanceof TimeException) {
+					results.add("%ERROR% --- Please provide a valid start and/or end time.");
+				} else if (e instanceof ShiftOverlapException) {
+					results.add("%ERROR% --- Shift overlaps with an existing shift.");
+				} else if (e instanceof StaffException) {
+					results.add(EMPTY_NAME_ERROR);
+				} else if (e instanceof DuplicateStaffException) {
+					results.add(DUPLICATE_STAFF_ERROR);
+				} else if (e instanceof ShiftException) {
+					results.add("%ERROR% --- Specified shift has not been previously set.");
+				} else if (e instanceof StaffConflictException) {
+					results.add(STAFF_CONFLICT_ERROR);
+				} else {												//minimum workers is not a number
+					results.add(MINIMUM_WORKERS_ERROR);
+				}
+			}
+			if (applied) {
+				return savedResults(results);
+			}
+			return results;
+		} else {
+			return _errorCheck;
+		}
+	}
+	
+	/**
+	 * Assigns staff so that every shift has a manager and at least its minimum number of workers, spreading the
+	 * hours evenly and never putting anyone on the same shift twice (see StaffingSolver)
+	 * @return the assignments made, each in format dayOfWeek[startTime-endTime] Givenname FamilyName, followed by
+	 * 			" (manager)" for managers. If they were made but could not be saved, each one starts with JOURNAL_ERROR
+	 */
+	public List<String> autoFill() {
+		if (_rosterCreated == true) {
+			List<String> assignments = new ArrayList<>();
+			for (RosterCommand c : _roster.autoFill()) {
+				assignments.add(c.getDayOfWeek() + "[" + c.getStartTime() + "-" + c.getEndTime() + "] " 
+						+ c.getGivenName() + " " + c.getFamilyName() + (c.isManager() ? " (manager)" : ""));
+			}
+			String saved = syncJournal();
+			if (!saved.isEmpty()) {		//the assignments were made, so still say which they were
+				for (int i = 0; i < assignments.size(); i++) {
+					assignments.set(i, saved + " " + assignments.get(i));
+				}
+			}
+			return assignments;
+		} else {
+			return _errorCheck;
+		}
+	}
+	
+	/**
+	 * Waits until the changes made so far are saved in the journal, then reports any that could not be saved
+	 * @param results one status per entry, empty string if its change was made
+	 * @return the same list, with JOURNAL_ERROR in place of each empty string if the changes could not be saved
+	 */
+	private List<String> savedResults(List<String> results) {
+		String saved = syncJournal();
+		if (!saved.isEmpty()) {
+			for (int i = 0; i < results.size(); i++) {
+				if (results.get(i).isEmpty()) {
+					results.set(i, saved);
+				}
+			}
+		}
+		return results;
+	}
+	
+	/**
+	 * Waits until the changes made so far are saved in the journal, if there is one
+	 * @return empty string if saved (or there is no journal), otherwise an error
+	 */
+	private String syncJournal() {
+		if (_journal != null) {
+			try {
+				_journal.sync();
+			} catch (IOException e) {
+				return JOURNAL_ERROR;
+			}
+		}
+		return "";
+	}
+	
 	public List<String> getRegisteredStaff() {
 		if (_rosterCreated == true) {
 			return _roster.getRegisteredStaff();
@@ -117,7 +314,7 @@ public class ShiftManServer implements shiftman.server.ShiftMan {
 	
 	public List<String> understaffedShifts() {
 		if (_rosterCreated == true) {
-			return _roster.getUnderOrOverStaffedShifts("understaffed");
+			return _roster.understaffedShifts();
 		} else {
 			return _errorCheck;
 		}
@@ -125,7 +322,7 @@ public class ShiftManServer implements shiftman.server.ShiftMan {
 	
 	public List<String> overstaffedShifts() {
 		if (_rosterCreated == true) {
-			return _roster.getUnderOrOverStaffedShifts("overstaffed");
+			return _roster.overstaffedShifts();
 		} else {
 			return _errorCheck;
 		}
@@ -139,6 +336,110 @@ public class ShiftManServer implements shiftman.server.ShiftMan {
 		}
 	}
 	
+	/**
+	 * Retrieves the staff that are not assigned to any shift from startTime to endTime on the given day
+	 * @param dayOfWeek
+	 * @param startTime
+	 * @param endTime
+	 * @return names in format "Givenname FamilyName", in alphabetical order, or a list with only an error in it
+	 */
+	public List<String> getAvailableStaff(String dayOfWeek, String startTime, String endTime) {
+		if (_rosterCreated == true) {
+			try {
+				return _roster.getAvailableStaff(dayOfWeek, startTime, endTime);
+			} catch (RosterException e) {
+				return Collections.singletonList("%ERROR% --- Please provide a valid name of day");
+			} catch (TimeException e) {
+				return Collections.singletonList("%ERROR% --- Please provide a valid start and/or end time.");
+			}
+		} else {
+			return _errorCheck;
+		}
+	}
+	
+	/**
+	 * Retrieves how the working hours are covered by shifts and workers. Each entry is an interval in which the
+	 * coverage does not change, in format dayOfWeek[startTime-endTime] followed by "x of y workers" (x assigned,
+	 * y required) or "not covered by a shift".
+	 * @param dayOfWeek one of the 7 days, or null for the whole week
+	 * @return intervals in chronological order, or a list with only an error
+	 */
+	public List<String> getCoverage(String dayOfWeek) {
+		if (_rosterCreated == true) {
+			try {
+				return _roster.getCoverage(dayOfWeek);
+			} catch (RosterException e) {
+				return Collections.singletonList("%ERROR% --- Please provide a valid name of day");
+			}
+		} else {
+			return _errorCheck;
+		}
+	}
+	
+	/**
+	 * Retrieves the parts of the working hours that are not covered by a shift, or have fewer workers than 
+	 * required, in the same format as getCoverage
+	 * @param dayOfWeek one of the 7 days, or null for the whole week
+	 * @return intervals in chronological order, or a list with only an error
+	 */
+	public List<String> getCoverageGaps(String dayOfWeek) {
+		if (_rosterCreated == true) {
+			try {
+				return _roster.getCoverageGaps(dayOfWeek);
+			} catch (RosterException e) {
+				return Collections.singletonList("%ERROR% --- Please provide a valid name of day");
+			}
+		} else {
+			return _errorCheck;
+		}
+	}
+	
+	/**
+	 * Retrieves the shifts that are at least partly within a range of the week, e.g. from Tuesday 10:00 to 
+	 * Thursday 14:00
+	 * @param fromDay
+	 * @param fromTime
+	 * @param toDay
+	 * @param toTime end of the range (not included)
+	 * @return shifts in format dayOfWeek[startTime-endTime], in chronological order, or a list with only an error
+	 */
+	public List<String> getShiftsBetween(String fromDay, String fromTime, String toDay, String toTime) {
+		if (_rosterCreated == true) {
+			try {
+				return _roster.getShiftsBetween(fromDay, fromTime, toDay, toTime);
+			} catch (RosterException e) {
+				return Collections.singletonList("%ERROR% --- Please provide a valid name of day");
+			} catch (TimeException e) {
+				return Collections.singletonList("%ERROR% --- Please provide a valid start and/or end time.");
+			}
+		} else {
+			return _errorCheck;
+		}
+	}
+	
+	/**
+	 * Retrieves who is working now and next: the shift in progress at the given time (if there is one) and the 
+	 * shifts after it, going on to next week's shifts after Sunday
+	 * @param dayOfWeek
+	 * @param time
+	 * @param count maximum number of shifts to retrieve
+	 * @return each shift with its manager and workers, in the same format as getRosterForDay, or a list with 
+	 * 			only an error
+	 */
+	public List<String> getNextShifts(String dayOfWeek, String time, int count) {
+		if (_rosterCreated == true) {
+			try {
+				return _roster.getNextShifts(dayOfWeek, time, count);
+			} catch (RosterException e) {
+				return Collections.singletonList("%ERROR% --- Please provide a valid name of day");
+			} catch (TimeException e) {
+				return Collections.singletonList("%ERROR% --- Please provide a valid start and/or end time.");
+			}
+		} else {
+			return _errorCheck;
+		}
+	}
+	
 	public List<String> getRosterForWorker(String workerName) {
 		if (_rosterCreated == true) {
 			return _roster.getRosterForWorker(workerName);
@@ -155,12 +456,230 @@ public class ShiftManServer implements shiftman.server.ShiftMan {
 		}
 	}
 	
+	/**
+	 * A paged query of RosterSnapshot, e.g. RosterSnapshot::understaffedShifts
+	 */
+	private interface PagedQuery {
+		RosterPage get(RosterSnapshot snapshot, String pageToken, int limit);
+	}
+	
+	private RosterPage page(PagedQuery query, String pageToken, int limit) {
+		RosterSnapshot snapshot = snapshot();
+		if (snapshot == null) {
+			return new RosterPage(_errorCheck, null);
+		} else if (limit < 1) {
+			return new RosterPage(Collections.singletonList(PAGE_LIMIT_ERROR), null);
+		}
+		try {
+			return query.get(snapshot, pageToken, limit);
+		} catch (IllegalArgumentException e) {
+			return new RosterPage(Collections.singletonList(PAGE_TOKEN_ERROR), null);
+		}
+	}
+	
+	/**
+	 * Retrieves a page of the registered staff, in the same format and order as getRegisteredStaff. Each page
+	 * is read from the latest version of the roster, and takes time in proportion to the page (see RosterSnapshot).
+	 * @param pageToken null for the first page, otherwise the token returned with the page before
+	 * @param limit most names on the page
+	 * @return page of names, or a page with only an error on it
+	 */
+	public RosterPage getRegisteredStaff(String pageToken, int limit) {
+		return page(RosterSnapshot::getRegisteredStaff, pageToken, limit);
+	}
+	
+	/**
+	 * Retrieves a page of the unassigned staff, in the same format and order as getUnassignedStaff
+	 * @param pageToken null for the first page, otherwise the token returned with the page before
+	 * @param limit most names on the page
+	 * @return page of names, or a page with only an error on it
+	 */
+	public RosterPage getUnassignedStaff(String pageToken, int limit) {
+		return page(RosterSnapshot::getUnassignedStaff, pageToken, limit);
+	}
+	
+	/**
+	 * Retrieves a page of the shifts without managers, in the same format and order as shiftsWithoutManagers
+	 * @param pageToken null for the first page, otherwise the token returned with the page before
+	 * @param limit most shifts on the page
+	 * @return page of shifts, or a page with only an error on it
+	 */
+	public RosterPage shiftsWithoutManagers(String pageToken, int limit) {
+		return page(RosterSnapshot::shiftsWithoutManagers, pageToken, limit);
+	}
+	
+	/**
+	 * Retrieves a page of the understaffed shifts, in the same format and order as understaffedShifts
+	 * @param pageToken null for the first page, otherwise the token returned with the page before
+	 * @param limit most shifts on the page
+	 * @return page of shifts, or a page with only an error on it
+	 */
+	public RosterPage understaffedShifts(String pageToken, int limit) {
+		return page(RosterSnapshot::understaffedShifts, pageToken, limit);
+	}
+	
+	/**
+	 * Retrieves a page of the overstaffed shifts, in the same format and order as overstaffedShifts
+	 * @param pageToken null for the first page, otherwise the token returned with the page before
+	 * @param limit most shifts on the page
+	 * @return page of shifts, or a page with only an error on it
+	 */
+	public RosterPage overstaffedShifts(String pageToken, int limit) {
+		return page(RosterSnapshot::overstaffedShifts, pageToken, limit);
+	}
+	
+	/**
+	 * Streams the registered staff from the latest version of the roster, in the same format and order as
+	 * getRegisteredStaff, without making a list of every name
+	 * @return names, or a stream with only an error in it
+	 */
+	public Stream<String> streamRegisteredStaff() {
+		RosterSnapshot snapshot = snapshot();
+		return snapshot == null ? _errorCheck.stream() : snapshot.streamRegisteredStaff();
+	}
+	
+	/**
+	 * Streams the unassigned staff, in the same format and order as getUnassignedStaff
+	 * @return names, or a stream with only an error in it
+	 */
+	public Stream<String> streamUnassignedStaff() {
+		RosterSnapshot snapshot = snapshot();
+		return snapshot == null ? _errorCheck.stream() : snapshot.streamUnassignedStaff();
+	}
+	
+	/**
+	 * Streams the shifts without managers, in the same format and order as shiftsWithoutManagers
+	 * @return shifts, or a stream with only an error in it
+	 */
+	public Stream<String> streamShiftsWithoutManagers() {
+		RosterSnapshot snapshot = snapshot();
+		return snapshot == null ? _errorCheck.stream() : snapshot.streamShiftsWithoutManagers();
+	}
+	
+	/**
+	 * Streams the understaffed shifts, in the same format and order as understaffedShifts
+	 * @return shifts, or a stream with only an error in it
+	 */
+	public Stream<String> streamUnderstaffedShifts() {
+		RosterSnapshot snapshot = snapshot();
+		return snapshot == null ? _errorCheck.stream() : snapshot.streamUnderstaffedShifts();
+	}
+	
+	/**
+	 * Streams the overstaffed shifts, in the same format and order as overstaffedShifts
+	 * @return shifts, or a stream with only an error in it
+	 */
+	public Stream<String> streamOverstaffedShifts() {
+		RosterSnapshot snapshot = snapshot();
+		return snapshot == null ? _errorCheck.stream() : snapshot.streamOverstaffedShifts();
+	}
+	
+	/**
+	 * Streams the roster for a day, in the same format as getRosterForDay
+	 * @param dayOfWeek
+	 * @return lines of the roster, or a stream with only an error in it
+	 */
+	public Stream<String> streamRosterForDay(String dayOfWeek) {
+		RosterSnapshot snapshot = snapshot();
+		return snapshot == null ? _errorCheck.stream() : snapshot.streamRosterForDay(dayOfWeek);
+	}
+	
+	/**
+	 * Retrieves the current version of the roster, which can be read from any thread without locks while the
+	 * roster keeps being changed
+	 * @return current version of the roster, or null if no roster has been created
+	 */
+	public RosterSnapshot snapshot() {
+		if (_rosterCreated == true) {
+			return _roster.snapshot();
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Saves the current roster to a file (see RosterSnapshotFile). Changes can still be made while it is saved.
+	 * @param file
+	 * @return empty string if saved, otherwise an error
+	 */
+	public String saveRoster(Path file) {
+		if (_rosterCreated == true) {
+			try {
+				RosterSnapshotFile.write(_roster.snapshot(), file);
+				return "";
+			} catch (IOException e) {
+				return "%ERROR% --- Could not save the roster.";
+			}
+		} else {
+			return "%ERROR% --- Please create a new roster first.";
+		}
+	}
+	
+	/**
+	 * Replaces the roster with one saved by saveRoster, as if newRoster had been called and every change made again.
+	 * Not allowed when the server has a journal, as the journal would not have the loaded roster in it.
+	 * @param file
+	 * @return empty string if loaded, otherwise an error
+	 */
+	public String loadRoster(Path file) {
+		if (_journal != null) {
+			return "%ERROR% --- Cannot load a roster while changes are saved in a journal.";
+		}
+		try {
+			Roster roster = RosterSnapshotFile.read(file);
+			String fixedShopName = getFixedShopName();
+			if (fixedShopName != null && !fixedShopName.equals(roster.snapshot().getShopName())) {
+				return SHOP_NAME_ERROR;
+			}
+			_roster = roster;
+			_rosterCreated = true;
+			return "";
+		} catch (IOException e) {
+			return "%ERROR% --- Could not load the roster.";
+		}
+	}
+	
+	/**
+	 * Retrieves the only shop name newRoster and loadRoster may give the roster, if the server belongs to a shop
+	 * (see RosterRegistry). A shop's roster is also kept if newRoster is given an empty name.
+	 * @return the shop name, or null if any name is allowed
+	 */
+	String getFixedShopName() {
+		return null;
+	}
+	
 	public String reportRosterIssues() {
-		return "";
+		if (_rosterCreated == true) {
+			return _roster.reportRosterIssues();
+		} else {
+			return "%ERROR% --- Please create a new roster first.";
+		}
 	}
 	
 	public String displayRoster() {
-		return "";
+		if (_rosterCreated == true) {
+			return _roster.displayRoster();
+		} else {
+			return "%ERROR% --- Please create a new roster first.";
+		}
+	}
+	
+	/**
+	 * Writes the current roster to out, e.g. a file or socket, instead of returning it as a String
+	 * @param out where the roster is written to
+	 * @return The status of the request as described in the notes of ShiftMan.
+	 */
+	public String displayRoster(Appendable out) {
+		if (_rosterCreated == true) {
+			try {
+				_roster.displayRoster(out);
+				return "";
+			} catch (IOException e) {
+				return "%ERROR% --- Could not write the roster.";
+			}
+		} else {
+			return "%ERROR% --- Please create a new roster first.";
+		}
 	}
 }
 
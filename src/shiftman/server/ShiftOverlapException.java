@@ -0,0 +1,17 @@
+package shiftman.server;
+
+/**
+ * A checked exception that checks if a new shift overlaps with a shift that already exists on the same day.
+ * @author Martin Tiangco
+ *
+ */
+public class ShiftOverlapException extends Exception {
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public ShiftOverlapException(String msg) {
+		super(msg);
+	}
+}
@@ -0,0 +1,18 @@
+package shiftman.server;
+
+/**
+ * A checked exception for assigning a staff member to a shift at a time they are already assigned to (the same
+ * shift, or another shift at the same time).
+ * @author Martin Tiangco
+ *
+ */
+public class StaffConflictException extends Exception {
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public StaffConflictException(String msg) {
+		super(msg);
+	}
+}
@@ -0,0 +1,79 @@
+package shiftman.server;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * StaffTable gives each staff member of a roster a dense int id when they are registered, so shifts can refer to
+ * staff by id (see Shift) instead of by object.
+ * This class has the following functionality:
+ * 		- ids are given in the order staff are registered, starting from 0, and are never reused
+ * 		- finds the staff member for an id with one array access, or for a name key (see StaffWorker.toNameKey)
+ * 		  with one hash lookup
+ * 		- keeps one copy of each given and family name: staff with the same given name (or family name) share the
+ * 		  same String
+ * Staff are only added while the Roster holds the staff lock (or while a roster is loaded, before it is used).
+ * An entry never changes once added, and the array is replaced rather than changed when it grows, so get() can
+ * be called without a lock for any id that the caller has been given. find() can also be called without a lock,
+ * and may return staff added after the caller's RosterSnapshot was made (see RosterSnapshot.findStaff).
+ * @author Martin Tiangco
+ *
+ */
+final class StaffTable {
+	//fields
+	private volatile StaffWorker[] _staff = new StaffWorker[16];
+	private volatile int _size = 0;
+	private final Map<String, String> _names = new HashMap<>();		//name -> the one copy of the name kept
+	private final Map<String, StaffWorker> _byNameKey = new ConcurrentHashMap<>();
+	
+	/**
+	 * Gives a new staff member the next id, and replaces their names with the copies kept in the table
+	 * @param staff not yet registered
+	 * @return the id
+	 */
+	int add(StaffWorker staff) {
+		int id = _size;
+		StaffWorker[] table = _staff;
+		if (id == table.length) {
+			table = Arrays.copyOf(table, table.length * 2);
+		}
+		staff.register(id, intern(staff.getGivenName()), intern(staff.getFamilyName()));
+		table[id] = staff;
+		_staff = table;
+		_size = id + 1;
+		_byNameKey.put(staff.getNameKey(), staff);
+		return id;
+	}
+	
+	private String intern(String name) {
+		String kept = _names.putIfAbsent(name, name);
+		return kept == null ? name : kept;
+	}
+	
+	/**
+	 * Retrieves the staff member with the given id
+	 * @param id
+	 * @return staff member
+	 */
+	StaffWorker get(int id) {
+		return _staff[id];
+	}
+	
+	/**
+	 * Finds a staff member by name
+	 * @param nameKey see StaffWorker.toNameKey
+	 * @return the staff member, or null if no staff member with that name has been added
+	 */
+	StaffWorker find(String nameKey) {
+		return _byNameKey.get(nameKey);
+	}
+	
+	/**
+	 * @return number of staff, which is one more than the largest id
+	 */
+	int size() {
+		return _size;
+	}
+}
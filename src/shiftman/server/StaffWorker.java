@@ -8,20 +8,31 @@ import java.util.List;
  * StaffWorker refers to an individual staff employee.
  * This class has the following functionality:
  * 		-formats the name like in the requirements
- * 		-add staff to List<Shift> that they are assigned to
- * There are three List<Shift>:
- * 		- every shift the staff is assigned to
- * 		- shifts the staff is assigned to as either worker or manager
+ * 		-add staff to List<Shift> that they are assigned to, and remove them again
+ * 		-keeps the minutes of each day the staff is assigned to, so a new shift is checked against every shift 
+ * 		 already assigned with a few bitwise ANDs instead of going through the list of shifts
+ * 		-has an id, given when the staff is registered in a roster's StaffTable, which shifts use to refer to them.
+ * 		 Registering also replaces the names with the copies the StaffTable keeps, so each name is kept once.
+ * There are two List<Shift>, of the shifts the staff is assigned to as either worker or manager, kept in
+ * chronological order by inserting each new shift where it belongs (binary search), so they are never sorted again.
+ * For the worker and manager lists, the strings returned by getRosterForWorker and getShiftsManagedBy are also
+ * kept, and only changed when a shift is assigned, so those queries do not convert any shifts.
  * @author Martin Tiangco
  *
  */
 public class StaffWorker implements Comparable<StaffWorker> {
 	//fields
-	private final String _givenname;
-	private final String _familyName;
-	private List<Shift> _assignedShift = new ArrayList<Shift>();
+	private String _givenname;			//replaced by the StaffTable's copy when registered
+	private String _familyName;
+	private final String _nameKey;		//case-folded full name, used as the key in the Roster's staff index
+	private int _id = -1;				//-1 until registered, see StaffTable
 	private List<Shift> _assignedShiftWorker = new ArrayList<Shift>();
 	private List<Shift> _assignedShiftManager = new ArrayList<Shift>();
+	private List<String> _workerRoster = Collections.emptyList();		//see getRoster, never changed once set
+	private List<String> _managerRoster = Collections.emptyList();
+	//one bitmap per day (indexed by DayOfWeek ordinal), bit m set if assigned at minute m. null until assigned that day.
+	private final long[][] _bookedMinutes = new long[DayOfWeek.values().length][];
+	private static final int WORDS_PER_DAY = (TimeOfDay.MINUTES_PER_DAY + 63) / 64;
 	
 	/**
 	 * Creates a StaffWorker based on the parameters given
@@ -31,30 +42,310 @@ public class StaffWorker implements Comparable<StaffWorker> {
 	public StaffWorker(String givenname, String familyName) {
 		_givenname = givenname;
 		_familyName = familyName;
+		_nameKey = toNameKey(givenname + " " + familyName);
+	}
+	
+	/**
+	 * Gives the staff member their id, and the names to keep, when they are registered (see StaffTable.add)
+	 * @param id
+	 * @param givenname equal to the given name
+	 * @param familyName equal to the family name
+	 */
+	void register(int id, String givenname, String familyName) {
+		_id = id;
+		_givenname = givenname;
+		_familyName = familyName;
+	}
+	
+	/**
+	 * @return id in the roster's StaffTable, or -1 if not registered
+	 */
+	int getId() {
+		return _id;
+	}
+	
+	/**
+	 * Converts a full name in the format "Givenname FamilyName" to the key used to look up staff (case insensitive)
+	 * @param fullName
+	 * @return case-folded name key
+	 */
+	public static String toNameKey(String fullName) {
+		return fullName.toLowerCase();
 	}
 	
 	/**
 	 * Assigns an existing shift to either a worker or a manager, adds to list of staff for that shift
-	 * then adds to either list of workers, or list of managers
+	 * then adds to either list of workers, or list of managers. A shift has only one manager, so if it already has
+	 * a different manager, they are unassigned from it first.
 	 * @param existingShift
 	 * @param IsManager	- true if manager, false if worker
+	 * @throws StaffConflictException if the staff is already assigned at any time during the shift
 	 */
-	public void assignShift(Shift existingShift, boolean IsManager) {
-		_assignedShift.add(existingShift);
+	public void assignShift(Shift existingShift, boolean IsManager) throws StaffConflictException {
+		if (!isFree(existingShift.getDayOfWeek(), existingShift.getStartMinute(), existingShift.getEndMinute())) {
+			throw new StaffConflictException("StaffConflictException: Staff is already assigned at that time.");
+		}
+		book(_bookedMinutes, existingShift.getDayOfWeek(), existingShift.getStartMinute(), existingShift.getEndMinute());
 		if (IsManager == true) {
-			existingShift.assignManager(getFullName());
-			_assignedShiftManager.add(existingShift);      //adds to manager shift list
-			Collections.sort(_assignedShiftManager);	   
+			StaffWorker previous = existingShift.getManagerStaff();
+			if (previous != null && previous != this) {
+				previous.unassignShift(existingShift);					//frees their minutes too
+			}
+			existingShift.assignManager(this);
+			_managerRoster = insertShift(_assignedShiftManager, _managerRoster, existingShift);	//adds to manager shift list
+		} else {
+			_workerRoster = insertShift(_assignedShiftWorker, _workerRoster, existingShift);	//adds to worker shift list
+		}
+	}
+	
+	/**
+	 * Removes the staff from a shift they are assigned to, as either worker or manager, both from their own lists
+	 * and from the shift's manager or workers
+	 * Whether the staff is assigned is decided by the shift's own manager and workers.
+	 * @param existingShift
+	 * @return false if the staff is not the shift's manager or one of its workers (nothing is changed)
+	 */
+	public boolean unassignShift(Shift existingShift) {
+		if (existingShift.removeManager(this)) {
+			int index = Collections.binarySearch(_assignedShiftManager, existingShift);
+			if (index >= 0) {
+				_assignedShiftManager.remove(index);
+				_managerRoster = removeShift(_managerRoster, index);
+			}
+		} else if (existingShift.removeStaffMember(this)) {
+			int index = Collections.binarySearch(_assignedShiftWorker, existingShift);
+			if (index >= 0) {
+				_assignedShiftWorker.remove(index);
+				_workerRoster = removeShift(_workerRoster, index);
+			}
+		} else {
+			return false;
+		}
+		free(existingShift);
+		return true;
+	}
+	
+	/**
+	 * Removes the staff from a shift without keeping the lists of strings, used when loading a saved roster (see
+	 * RosterLoader). The lists of shifts may not be sorted yet, so they are searched in order.
+	 * @param existingShift
+	 * @return false if the staff is not the shift's manager or one of its workers
+	 */
+	boolean unloadShift(Shift existingShift) {
+		if (existingShift.removeManager(this)) {
+			_assignedShiftManager.remove(existingShift);
+		} else if (existingShift.removeStaffMember(this)) {
+			_assignedShiftWorker.remove(existingShift);
+		} else {
+			return false;
+		}
+		free(existingShift);
+		return true;
+	}
+	
+	/**
+	 * Clears the minutes of a shift in the bitmap of its day
+	 */
+	private void free(Shift shift) {
+		unbook(_bookedMinutes, shift.getDayOfWeek(), shift.getStartMinute(), shift.getEndMinute());
+	}
+	
+	/**
+	 * @param roster see getRoster
+	 * @param index of the shift removed from the list of shifts
+	 * @return the strings without that shift, or an empty list if it was the only one
+	 */
+	private static List<String> removeShift(List<String> roster, int index) {
+		if (roster.size() == 2) {
+			return Collections.emptyList();
+		}
+		List<String> updated = new ArrayList<>(roster.size() - 1);
+		updated.addAll(roster.subList(0, index + 1));		//name, then the shifts before the removed one
+		updated.addAll(roster.subList(index + 2, roster.size()));
+		return Collections.unmodifiableList(updated);
+	}
+	
+	/**
+	 * Adds a shift to a list in chronological order, at the position found by binary search
+	 * @param shifts in chronological order
+	 * @param roster the strings for shifts before the new one was added (see getRoster)
+	 * @param shift
+	 * @return the strings for shifts with the new one added
+	 */
+	private List<String> insertShift(List<Shift> shifts, List<String> roster, Shift shift) {
+		int index = Collections.binarySearch(shifts, shift);
+		if (index < 0) {
+			index = -index - 1;								//position where the shift belongs
+		}
+		shifts.add(index, shift);
+		if (roster.isEmpty()) {
+			return toRoster(shifts);
+		}
+		List<String> updated = new ArrayList<>(roster.size() + 1);
+		updated.addAll(roster.subList(0, index + 1));		//name, then the shifts before the new one
+		updated.add(shift.toString());
+		updated.addAll(roster.subList(index + 1, roster.size()));
+		return Collections.unmodifiableList(updated);
+	}
+	
+	/**
+	 * @param shifts in chronological order
+	 * @return the name in format "FamilyName, Givenname" then each shift, or an empty list if there are no shifts
+	 */
+	private List<String> toRoster(List<Shift> shifts) {
+		if (shifts.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<String> roster = new ArrayList<>(shifts.size() + 1);
+		roster.add(formatName());
+		for (Shift s : shifts) {
+			roster.add(s.toString());
+		}
+		return Collections.unmodifiableList(roster);
+	}
+	
+	/**
+	 * Assigns a shift without sorting, used when loading a saved roster (see RosterLoader). A manager replaces the
+	 * shift's manager in the same way as assignShift.
+	 * finishLoad() must be called once every shift has been loaded.
+	 * @param existingShift
+	 * @param isManager	- true if manager, false if worker
+	 */
+	void loadShift(Shift existingShift, boolean isManager) {
+		book(_bookedMinutes, existingShift.getDayOfWeek(), existingShift.getStartMinute(), existingShift.getEndMinute());
+		if (isManager == true) {
+			StaffWorker previous = existingShift.getManagerStaff();
+			if (previous != null && previous != this) {					//replaced, as in assignShift
+				previous.unloadShift(existingShift);
+			}
+			existingShift.assignManager(this);
+			_assignedShiftManager.add(existingShift);
 		} else {
-			_assignedShiftWorker.add(existingShift);       //adds to worker shift list
-			Collections.sort(_assignedShiftWorker);		   
+			_assignedShiftWorker.add(existingShift);
 		}
 	}
 	
+	/**
+	 * Sorts the lists of shifts in chronological order, once loading has finished
+	 */
+	void finishLoad() {
+		Collections.sort(_assignedShiftManager);
+		Collections.sort(_assignedShiftWorker);
+		_managerRoster = toRoster(_assignedShiftManager);
+		_workerRoster = toRoster(_assignedShiftWorker);
+	}
+	
+	/**
+	 * Checks if the staff is not assigned to any shift during the given time
+	 * @param dayOfWeek
+	 * @param startMinute first minute of the time (0 mins is 00:00)
+	 * @param endMinute end of the time (not included)
+	 * @return true if free for the whole time
+	 */
+	public boolean isFree(DayOfWeek dayOfWeek, int startMinute, int endMinute) {
+		return !isBooked(_bookedMinutes, dayOfWeek, startMinute, endMinute);
+	}
+	
+	/**
+	 * Marks minutes as assigned in a week of bitmaps laid out like a StaffWorker's (also used by RosterBatch, for
+	 * assignments it has checked but not yet made)
+	 * @param week one bitmap per day, indexed by DayOfWeek ordinal. The day's bitmap is created if it is null.
+	 * @param dayOfWeek
+	 * @param startMinute
+	 * @param endMinute not included
+	 */
+	static void book(long[][] week, DayOfWeek dayOfWeek, int startMinute, int endMinute) {
+		long[] day = week[dayOfWeek.ordinal()];
+		if (day == null) {
+			day = new long[WORDS_PER_DAY];
+			week[dayOfWeek.ordinal()] = day;
+		}
+		int first = startMinute >>> 6;
+		int last = (endMinute - 1) >>> 6;
+		for (int i = first; i <= last; i++) {
+			day[i] |= wordMask(i, first, last, startMinute, endMinute);
+		}
+	}
+	
+	/**
+	 * Clears minutes in a week of bitmaps (see book). Days without a bitmap are left as they are.
+	 */
+	static void unbook(long[][] week, DayOfWeek dayOfWeek, int startMinute, int endMinute) {
+		long[] day = week[dayOfWeek.ordinal()];
+		if (day == null) {
+			return;
+		}
+		int first = startMinute >>> 6;
+		int last = (endMinute - 1) >>> 6;
+		for (int i = first; i <= last; i++) {
+			day[i] &= ~wordMask(i, first, last, startMinute, endMinute);
+		}
+	}
+	
+	/**
+	 * Checks if the staff is assigned at any of the given minutes, not counting minutes that have been released
+	 * (used by RosterBatch for managers that an earlier command in the batch replaces)
+	 * @param released bitmaps laid out like book's, with the minutes to ignore
+	 * @return true if at least one minute from startMinute to endMinute (not included) is assigned and not released
+	 */
+	boolean isBookedUnlessReleased(long[][] released, DayOfWeek dayOfWeek, int startMinute, int endMinute) {
+		long[] day = _bookedMinutes[dayOfWeek.ordinal()];
+		if (day == null || startMinute >= endMinute) {
+			return false;
+		}
+		long[] ignored = released[dayOfWeek.ordinal()];
+		int first = startMinute >>> 6;
+		int last = (endMinute - 1) >>> 6;
+		for (int i = first; i <= last; i++) {
+			long booked = ignored == null ? day[i] : day[i] & ~ignored[i];
+			if ((booked & wordMask(i, first, last, startMinute, endMinute)) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Checks if any of the minutes are assigned in a week of bitmaps (see book)
+	 * @return true if at least one minute from startMinute to endMinute (not included) is assigned
+	 */
+	static boolean isBooked(long[][] week, DayOfWeek dayOfWeek, int startMinute, int endMinute) {
+		long[] day = week[dayOfWeek.ordinal()];
+		if (day == null || startMinute >= endMinute) {
+			return false;
+		}
+		int first = startMinute >>> 6;
+		int last = (endMinute - 1) >>> 6;
+		for (int i = first; i <= last; i++) {
+			if ((day[i] & wordMask(i, first, last, startMinute, endMinute)) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @return the bits of word i that are in the minutes from startMinute to endMinute (not included)
+	 */
+	private static long wordMask(int i, int first, int last, int startMinute, int endMinute) {
+		long mask = -1L;
+		if (i == first) {
+			mask &= -1L << startMinute;							//shift is by startMinute % 64
+		}
+		if (i == last) {
+			mask &= -1L >>> (63 - ((endMinute - 1) & 63));		//up to and including endMinute - 1
+		}
+		return mask;
+	}
+	
 	public String getFullName() {
 		return _givenname + " " + _familyName;
 	}
 
+	public String getNameKey() {
+		return _nameKey;
+	}
+
 	public String getGivenName() {
 		return _givenname;
 	}
@@ -72,11 +363,11 @@ public class StaffWorker implements Comparable<StaffWorker> {
 	}
 	
 	/**
-	 * Retrieves all assigned shifts in the list
-	 * @return list of shifts of the staff
+	 * Checks if the staff is assigned to any shift, as either worker or manager
+	 * @return true if assigned to at least one shift
 	 */
-	public List<Shift> getShift() {
-		return _assignedShift;
+	public boolean hasShifts() {
+		return !_assignedShiftManager.isEmpty() || !_assignedShiftWorker.isEmpty();
 	}
 	
 	/**
@@ -92,6 +383,21 @@ public class StaffWorker implements Comparable<StaffWorker> {
 		}
 	}
 
+	/**
+	 * Retrieves the staff member's name followed by either their shifts as worker or as manager, in the format
+	 * returned by getRosterForWorker and getShiftsManagedBy
+	 * @param isManager	- true if manager/false if worker
+	 * @return "FamilyName, Givenname" then each shift in chronological order, or an empty list if there are no shifts.
+	 * 			The list cannot be modified, and is never changed (a new list is made when a shift is assigned).
+	 */
+	public List<String> getRoster(boolean isManager) {
+		if (isManager == true) {
+			return _managerRoster;
+		} else {
+			return _workerRoster;
+		}
+	}
+
 	/**
 	 * Sorts in alphabetical order of FamilyName, and if FamilyName are equal, sorts by Givenname
 	 */
@@ -0,0 +1,176 @@
+package shiftman.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * StaffingSolver works out which staff to assign so every shift has a manager and at least its minimum number of
+ * workers (see Roster.autoFill).
+ * This class has the following functionality:
+ * 		- gives each shift without a manager a manager, and each understaffed shift enough workers to reach its
+ * 		  minimum (or as many as there are staff not already on the shift)
+ * 		- never puts a staff member on a shift they are already on, as manager or worker. Shifts on the same day
+ * 		  never overlap, so no one can be booked for two shifts at the same time.
+ * 		- spreads hours evenly: each place is given to the staff member with the fewest minutes of shifts so far
+ * 		  (counting the shifts they were already assigned and the places given before it), ties going to the
+ * 		  staff member first in alphabetical order. Staff who had no shifts before therefore end up within one
+ * 		  shift's length of each other, as long as there are more staff than places on any one shift.
+ * 		- always gives the same assignments for the same roster. Places are given one at a time, for each day
+ * 		  in order from Monday to Sunday and each shift in chronological order, from one heap of staff ordered
+ * 		  by minutes, so picking the least loaded staff member is O(log n).
+ * The solver is sequential: giving a place changes which staff member is least loaded for every later place, so
+ * days cannot be filled at the same time without making the result depend on thread timing.
+ * The solver only reads the roster, and returns the assignments as commands. Roster must hold every lock while it
+ * solves and makes the assignments.
+ * @author Martin Tiangco
+ *
+ */
+class StaffingSolver {
+	//fields
+	private final List<Day> _days;
+	private final List<StaffWorker> _staff;
+	private final long[] _minutes;				//minutes of shifts per staff member, indexed like _staff
+	private final int[] _positions;				//staff id -> index in _staff
+	
+	/**
+	 * @param days to fill, in order from Monday to Sunday
+	 * @param staff registered staff, in alphabetical order
+	 * @param staffTable the ids of the registered staff
+	 */
+	StaffingSolver(List<Day> days, List<StaffWorker> staff, StaffTable staffTable) {
+		_days = days;
+		_staff = staff;
+		_minutes = new long[staff.size()];
+		_positions = new int[staffTable.size()];
+		for (int i = 0; i < staff.size(); i++) {
+			long minutes = 0;
+			for (Shift shift : staff.get(i).getShift(true)) {
+				minutes += shift.getEndMinute() - shift.getStartMinute();
+			}
+			for (Shift shift : staff.get(i).getShift(false)) {
+				minutes += shift.getEndMinute() - shift.getStartMinute();
+			}
+			_minutes[i] = minutes;
+			_positions[staff.get(i).getId()] = i;
+		}
+	}
+	
+	/**
+	 * Works out the assignments for every day
+	 * @return commands that make the assignments, for each day in order from Monday to Sunday and each shift
+	 * 			in chronological order
+	 */
+	List<RosterCommand> solve() {
+		List<RosterCommand> commands = new ArrayList<>();
+		if (_staff.isEmpty()) {
+			return commands;
+		}
+		//staff by minutes, then by position in _staff. Entries are {minutes, index}.
+		PriorityQueue<long[]> leastLoaded = new PriorityQueue<>(
+				(a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+		for (int i = 0; i < _staff.size(); i++) {
+			leastLoaded.add(new long[] {_minutes[i], i});
+		}
+		boolean[] onShift = new boolean[_staff.size()];			//by index, for the shift being filled
+		for (Day d : _days) {									//days in order, so the result is always the same
+			String day = d.toString();
+			for (Need need : needs(d)) {
+				for (int index : need._members) {
+					onShift[index] = true;
+				}
+				List<long[]> skipped = new ArrayList<>();			//already on the shift, put back afterwards
+				List<Integer> chosen = new ArrayList<>();
+				if (need._managerNeeded) {
+					assign(need, day, true, leastLoaded, onShift, skipped, chosen, commands);
+				}
+				for (int w = 0; w < need._workersNeeded; w++) {
+					if (!assign(need, day, false, leastLoaded, onShift, skipped, chosen, commands)) {
+						break;											//everyone is on the shift
+					}
+				}
+				for (int index : need._members) {
+					onShift[index] = false;
+				}
+				for (int index : chosen) {
+					onShift[index] = false;
+				}
+				leastLoaded.addAll(skipped);
+			}
+		}
+		return commands;
+	}
+	
+	/**
+	 * Assigns the least loaded staff member that is not already on the shift
+	 * @return false if every staff member is already on the shift
+	 */
+	private boolean assign(Need need, String day, boolean isManager, PriorityQueue<long[]> leastLoaded,
+			boolean[] onShift, List<long[]> skipped, List<Integer> chosen, List<RosterCommand> commands) {
+		while (!leastLoaded.isEmpty()) {
+			long[] entry = leastLoaded.poll();
+			int index = (int) entry[1];
+			if (onShift[index]) {
+				skipped.add(entry);
+				continue;
+			}
+			onShift[index] = true;
+			chosen.add(index);
+			StaffWorker staff = _staff.get(index);
+			_minutes[index] += need._length;
+			entry[0] = _minutes[index];
+			leastLoaded.add(entry);
+			Shift shift = need._shift;
+			commands.add(RosterCommand.assignStaff(day, shift.getStartTime().toString(), shift.getEndTime().toString(),
+					staff.getGivenName(), staff.getFamilyName(), isManager));
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * A shift that needs a manager or more workers, and the staff already on it
+	 */
+	private static final class Need {
+		private final Shift _shift;
+		private final int _length;
+		private final boolean _managerNeeded;
+		private final int _workersNeeded;
+		private final int[] _members;			//indexes in _staff of the manager and workers already on the shift
+	
+		private Need(Shift shift, int length, boolean managerNeeded, int workersNeeded, int[] members) {
+			_shift = shift;
+			_length = length;
+			_managerNeeded = managerNeeded;
+			_workersNeeded = workersNeeded;
+			_members = members;
+		}
+	}
+	
+	/**
+	 * Finds the shifts of one day that need staff
+	 * @param day
+	 * @return the shifts without a manager or with fewer workers than their minimum, in chronological order
+	 */
+	private List<Need> needs(Day day) {
+		List<Need> needs = new ArrayList<>();
+		for (Shift shift : day.getListOfShifts()) {
+			int workersNeeded = shift.getMinimumWorkers() - shift.getNumberOfWorkers();
+			boolean managerNeeded = shift.getManagerId() == Shift.NO_STAFF;
+			if (workersNeeded <= 0 && !managerNeeded) {
+				continue;
+			}
+			int[] workerIds = shift.getWorkerIds();
+			int[] members = new int[workerIds.length + (managerNeeded ? 0 : 1)];
+			for (int i = 0; i < workerIds.length; i++) {
+				members[i] = _positions[workerIds[i]];
+			}
+			if (!managerNeeded) {
+				members[workerIds.length] = _positions[shift.getManagerId()];
+			}
+			needs.add(new Need(shift, shift.getEndMinute() - shift.getStartMinute(), managerNeeded,
+					Math.max(workersNeeded, 0), members));
+		}
+		return needs;
+	}
+}
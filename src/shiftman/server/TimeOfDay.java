@@ -0,0 +1,104 @@
+package shiftman.server;
+
+/**
+ * TimeOfDay refers to a single minute of the day, from 00:00 (0 mins) to 23:59 (1439 mins).
+ * This class has the following functionality:
+ * 		- there is only ever one TimeOfDay object for each of the 1440 minutes, created when the class is loaded,
+ * 		  so TimeOfDay objects can be shared by every Day and Shift and compared with ==
+ * 		- parses times in format hh:mm one character at a time, returning null for invalid input instead of 
+ * 		  throwing an exception
+ * 		- compares times in chronological order by minute of the day
+ * @author Martin Tiangco
+ *
+ */
+public final class TimeOfDay implements Comparable<TimeOfDay> {
+	public static final int MINUTES_PER_DAY = 1440;
+	
+	private static final TimeOfDay[] _times = new TimeOfDay[MINUTES_PER_DAY];
+	
+	static {
+		for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+			_times[minute] = new TimeOfDay(minute);
+		}
+	}
+	
+	//fields
+	private final int _minute;
+	private final String _formatted;	//hh:mm, built once so toString does not create a new String
+	
+	private TimeOfDay(int minute) {
+		_minute = minute;
+		int hours = minute / 60;
+		int minutes = minute % 60;
+		_formatted = new String(new char[] {
+				(char) ('0' + hours / 10), (char) ('0' + hours % 10), ':',
+				(char) ('0' + minutes / 10), (char) ('0' + minutes % 10)});
+	}
+	
+	/**
+	 * Retrieves the TimeOfDay for a minute of the day
+	 * @param minute in the range 0-1439
+	 * @return the TimeOfDay, or null if the minute is out of range
+	 */
+	public static TimeOfDay of(int minute) {
+		if (minute < 0 || minute >= MINUTES_PER_DAY) {
+			return null;
+		}
+		return _times[minute];
+	}
+	
+	/**
+	 * Converts a time in format hh:mm (zero-padded, no seconds) to a TimeOfDay
+	 * @param time
+	 * @return the TimeOfDay, or null if the time is not in format hh:mm or is not in the range 00:00-23:59
+	 */
+	public static TimeOfDay parse(String time) {
+		if (time == null || time.length() != 5 || time.charAt(2) != ':') {
+			return null;
+		}
+		int h1 = digit(time.charAt(0));
+		int h2 = digit(time.charAt(1));
+		int m1 = digit(time.charAt(3));
+		int m2 = digit(time.charAt(4));
+		if (h1 < 0 || h2 < 0 || m1 < 0 || m2 < 0 || m1 > 5) {
+			return null;
+		}
+		return of((h1 * 10 + h2) * 60 + m1 * 10 + m2);	//of() returns null for hours past 23
+	}
+	
+	/**
+	 * Converts a character to the digit it represents
+	 * @param c
+	 * @return 0-9, or -1 if the character is not a digit
+	 */
+	private static int digit(char c) {
+		if (c < '0' || c > '9') {
+			return -1;
+		}
+		return c - '0';
+	}
+	
+	/**
+	 * Retrieves the minute of the day
+	 * @return 0 (00:00) to 1439 (23:59)
+	 */
+	public int getMinute() {
+		return _minute;
+	}
+	
+	/**
+	 * Compares times in chronological order
+	 */
+	@Override
+	public int compareTo(TimeOfDay other) {
+		return Integer.compare(_minute, other._minute);
+	}
+	
+	/**
+	 * Retrieves the time in format hh:mm
+	 */
+	@Override
+	public String toString() {
+		return _formatted;
+	}
+}
@@ -0,0 +1,103 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a batch of changes is made all at once when every command in it is valid, and leaves the roster
+ * unchanged when any command in it is invalid.
+ * @author Martin Tiangco
+ *
+ */
+public class RosterBatchTest {
+	private static final String BATCH_REJECTED_ERROR = "%ERROR% --- Batch rejected, as another command in it is invalid.";
+	
+	private ShiftManServer _server;
+	
+	@BeforeEach
+	public void createRoster() {
+		_server = new ShiftManServer();
+		assertEquals("", _server.newRoster("Batch Shop"));
+		assertEquals("", _server.setWorkingHours("Monday", "08:00", "18:00"));
+		assertEquals("", _server.addShift("Monday", "08:00", "12:00", "1"));
+		assertEquals("", _server.registerStaff("Ana", "Lee"));
+		assertEquals("", _server.assignStaff("Monday", "08:00", "12:00", "Ana", "Lee", true));
+	}
+	
+	@Test
+	public void validBatchIsMade() {
+		List<String> results = _server.applyBatch(Arrays.asList(
+				RosterCommand.setWorkingHours("Tuesday", "09:00", "17:00"),
+				RosterCommand.addShift("Tuesday", "09:00", "17:00", "2"),
+				RosterCommand.registerStaff("Sam", "Ortiz"),
+				RosterCommand.assignStaff("Tuesday", "09:00", "17:00", "Sam", "Ortiz", false)));
+		assertEquals(Arrays.asList("", "", "", ""), results);
+		
+		ShiftManServer expected = new ShiftManServer();
+		expected.newRoster("Batch Shop");
+		expected.setWorkingHours("Monday", "08:00", "18:00");
+		expected.addShift("Monday", "08:00", "12:00", "1");
+		expected.registerStaff("Ana", "Lee");
+		expected.assignStaff("Monday", "08:00", "12:00", "Ana", "Lee", true);
+		expected.setWorkingHours("Tuesday", "09:00", "17:00");
+		expected.addShift("Tuesday", "09:00", "17:00", "2");
+		expected.registerStaff("Sam", "Ortiz");
+		expected.assignStaff("Tuesday", "09:00", "17:00", "Sam", "Ortiz", false);
+		assertEquals(expected.displayRoster(), _server.displayRoster());
+		assertEquals(expected.getRegisteredStaff(), _server.getRegisteredStaff());
+	}
+	
+	@Test
+	public void batchWithAnInvalidCommandIsNotMade() {
+		String roster = _server.displayRoster();
+		List<String> staff = _server.getRegisteredStaff();
+		List<String> results = _server.applyBatch(Arrays.asList(
+				RosterCommand.setWorkingHours("Tuesday", "09:00", "17:00"),
+				RosterCommand.addShift("Tuesday", "09:00", "17:00", "2"),
+				RosterCommand.registerStaff("Sam", "Ortiz"),
+				RosterCommand.assignStaff("Tuesday", "09:00", "17:00", "Sam", "Ortiz", false),
+				RosterCommand.addShift("Monday", "11:00", "13:00", "1")));
+		assertEquals(Arrays.asList(BATCH_REJECTED_ERROR, BATCH_REJECTED_ERROR, BATCH_REJECTED_ERROR,
+				BATCH_REJECTED_ERROR, "%ERROR% --- Shift overlaps with an existing shift."), results);
+		assertUnchanged(roster, staff);
+	}
+	
+	@Test
+	public void commandInvalidOnlyBecauseOfAnEarlierCommandRejectsTheBatch() {
+		String roster = _server.displayRoster();
+		List<String> staff = _server.getRegisteredStaff();
+		List<String> results = _server.applyBatch(Arrays.asList(
+				RosterCommand.registerStaff("Sam", "Ortiz"),
+				RosterCommand.registerStaff("Sam", "Ortiz"),
+				RosterCommand.assignStaff("Monday", "08:00", "12:00", "Sam", "Ortiz", false)));
+		assertEquals(Arrays.asList(BATCH_REJECTED_ERROR, "%ERROR% --- Staff already registered.",
+				BATCH_REJECTED_ERROR), results);
+		assertUnchanged(roster, staff);
+	}
+	
+	@Test
+	public void everyInvalidCommandIsReported() {
+		String roster = _server.displayRoster();
+		List<String> staff = _server.getRegisteredStaff();
+		List<String> results = _server.applyBatch(Arrays.asList(
+				RosterCommand.registerStaff("", "Ortiz"),
+				RosterCommand.addShift("Monday", "12:00", "14:00", "lots"),
+				RosterCommand.assignStaff("Monday", "13:00", "14:00", "Ana", "Lee", false),
+				RosterCommand.registerStaff("Sam", "Ortiz")));
+		assertEquals(Arrays.asList("%ERROR% --- Please provide a non-empty GivenName and/or FamilyName.",
+				"%ERROR% --- Please provide a valid minimum number of workers.",
+				"%ERROR% --- Specified shift has not been previously set.", BATCH_REJECTED_ERROR), results);
+		assertUnchanged(roster, staff);
+	}
+	
+	private void assertUnchanged(String roster, List<String> staff) {
+		assertEquals(roster, _server.displayRoster());
+		assertEquals(staff, _server.getRegisteredStaff());
+		assertEquals(Arrays.asList("Lee, Ana", "Monday[08:00-12:00]"), _server.getShiftsManagedBy("Ana Lee"));
+	}
+}
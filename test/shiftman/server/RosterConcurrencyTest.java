@@ -0,0 +1,115 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that assignments and unassignments made by many threads at once on the same day are all made, and leave
+ * the roster the same as making them one at a time would.
+ * @author Martin Tiangco
+ *
+ */
+public class RosterConcurrencyTest {
+	private static final int THREADS = 8;
+	private static final int STAFF_PER_THREAD = 10;
+	private static final int SHIFTS = 10;
+	private static final int ROUNDS = 200;
+	
+	/**
+	 * Each thread assigns its own staff to every Monday shift and unassigns them again, many times over, so the
+	 * threads always change the same shifts at the same time. Each thread finishes with its even-numbered staff
+	 * assigned to every shift, as workers.
+	 */
+	@Test
+	public void concurrentAssignAndUnassignOnOneDay() throws Exception {
+		ShiftManServer server = roster();
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<List<String>>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				results.add(pool.submit(() -> assignAndUnassign(server, thread)));
+			}
+			for (Future<List<String>> result : results) {
+				assertEquals(new ArrayList<String>(), result.get());		//no call returned an error
+			}
+		} finally {
+			pool.shutdown();
+		}
+		
+		ShiftManServer expected = roster();
+		for (int t = 0; t < THREADS; t++) {
+			for (int s = 0; s < STAFF_PER_THREAD; s += 2) {
+				for (int h = 0; h < SHIFTS; h++) {
+					assertEquals("", expected.assignStaff("Monday", time(h), time(h + 1), given(t, s), "F", false));
+				}
+			}
+		}
+		assertEquals(expected.displayRoster(), server.displayRoster());
+		assertEquals(expected.getRosterForDay("Monday"), server.getRosterForDay("Monday"));
+		assertEquals(expected.getUnassignedStaff(), server.getUnassignedStaff());
+		assertEquals(expected.understaffedShifts(), server.understaffedShifts());
+		for (int t = 0; t < THREADS; t++) {
+			for (int s = 0; s < STAFF_PER_THREAD; s++) {
+				String name = given(t, s) + " F";
+				assertEquals(expected.getRosterForWorker(name), server.getRosterForWorker(name));
+			}
+		}
+	}
+	
+	/**
+	 * @return the errors returned by any call
+	 */
+	private static List<String> assignAndUnassign(ShiftManServer server, int thread) {
+		List<String> errors = new ArrayList<>();
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int s = 0; s < STAFF_PER_THREAD; s++) {
+				int h = (round + s) % SHIFTS;
+				addError(errors, server.assignStaff("Monday", time(h), time(h + 1), given(thread, s), "F", false));
+				addError(errors, server.unassignStaff("Monday", time(h), time(h + 1), given(thread, s), "F"));
+			}
+		}
+		for (int s = 0; s < STAFF_PER_THREAD; s += 2) {
+			for (int h = 0; h < SHIFTS; h++) {
+				addError(errors, server.assignStaff("Monday", time(h), time(h + 1), given(thread, s), "F", false));
+			}
+		}
+		return errors;
+	}
+	
+	private static void addError(List<String> errors, String result) {
+		if (!result.isEmpty()) {
+			errors.add(result);
+		}
+	}
+	
+	private static ShiftManServer roster() {
+		ShiftManServer server = new ShiftManServer();
+		server.newRoster("Shop");
+		server.setWorkingHours("Monday", time(0), time(SHIFTS));
+		for (int h = 0; h < SHIFTS; h++) {
+			server.addShift("Monday", time(h), time(h + 1), "1");
+		}
+		for (int t = 0; t < THREADS; t++) {
+			for (int s = 0; s < STAFF_PER_THREAD; s++) {
+				server.registerStaff(given(t, s), "F");
+			}
+		}
+		return server;
+	}
+	
+	private static String given(int thread, int staff) {
+		return "G" + thread + "_" + staff;
+	}
+	
+	private static String time(int hour) {
+		return String.format("%02d:00", 8 + hour);
+	}
+}
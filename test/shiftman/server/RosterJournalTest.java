@@ -0,0 +1,140 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that RosterJournal rebuilds the saved roster when it is opened, removes a record that was only partly
+ * written, and reports damage before the last record instead of removing saved changes.
+ * @author Martin Tiangco
+ *
+ */
+public class RosterJournalTest {
+	@TempDir
+	Path _dir;
+	private Path _file;
+	private String _savedRoster;		//displayRoster() of the roster saved in _file
+	
+	@BeforeEach
+	public void saveRoster() throws IOException {
+		_file = _dir.resolve("roster.journal");
+		try (RosterJournal journal = RosterJournal.open(_file)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals("", server.newRoster("Journal Shop"));
+			assertEquals("", server.setWorkingHours("Monday", "08:00", "18:00"));
+			assertEquals("", server.addShift("Monday", "08:00", "12:00", "1"));
+			assertEquals("", server.addShift("Monday", "12:00", "18:00", "2"));
+			assertEquals("", server.registerStaff("Ana", "Lee"));
+			assertEquals("", server.registerStaff("Ren\u00e9", "Ng"));
+			assertEquals("", server.assignStaff("Monday", "08:00", "12:00", "Ana", "Lee", true));
+			assertEquals("", server.assignStaff("Monday", "12:00", "18:00", "Ren\u00e9", "Ng", false));
+			assertEquals("", server.assignStaff("Monday", "12:00", "18:00", "Ana", "Lee", false));
+			assertEquals("", server.unassignStaff("Monday", "12:00", "18:00", "Ana", "Lee"));
+			_savedRoster = server.displayRoster();
+		}
+	}
+	
+	@Test
+	public void replayRebuildsTheSavedRoster() throws IOException {
+		assertEquals(_savedRoster, replay());
+	}
+	
+	@Test
+	public void replayRemovesAPartlyWrittenRecord() throws IOException {
+		long size = Files.size(_file);
+		Files.write(_file, new byte[] {0, 0, 0, 50, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+		assertEquals(_savedRoster, replay());
+		assertEquals(size, Files.size(_file));
+	}
+	
+	@Test
+	public void replayRemovesZerosAtTheEnd() throws IOException {
+		long size = Files.size(_file);
+		Files.write(_file, new byte[100], StandardOpenOption.APPEND);
+		assertEquals(_savedRoster, replay());
+		assertEquals(size, Files.size(_file));
+	}
+	
+	@Test
+	public void replayRemovesALastRecordThatDoesNotMatchItsCrc() throws IOException {
+		byte[] bytes = Files.readAllBytes(_file);
+		bytes[bytes.length - 1] ^= 1;				//the last record unassigns Ana Lee
+		Files.write(_file, bytes);
+		try (RosterJournal journal = RosterJournal.open(_file)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals(2, server.getRosterForWorker("Ana Lee").size());	//the name, then the shift still assigned
+		}
+		assertEquals(bytes.length - lastRecordLength(bytes), Files.size(_file));
+	}
+	
+	@Test
+	public void damageBeforeTheLastRecordIsAnError() throws IOException {
+		byte[] bytes = Files.readAllBytes(_file);
+		bytes[9] ^= 1;								//data of the first record
+		Files.write(_file, bytes);
+		assertThrows(IOException.class, () -> RosterJournal.open(_file));
+		assertEquals(bytes.length, Files.size(_file));	//nothing was removed
+	}
+	
+	@Test
+	public void lengthLongerThanAnyRecordIsAnError() throws IOException {
+		byte[] bytes = Files.readAllBytes(_file);
+		ByteBuffer.wrap(bytes).putInt(0, Integer.MAX_VALUE);
+		Files.write(_file, bytes);
+		assertThrows(IOException.class, () -> RosterJournal.open(_file));
+		assertEquals(bytes.length, Files.size(_file));
+	}
+	
+	@Test
+	public void negativeLengthIsAnError() throws IOException {
+		byte[] bytes = Files.readAllBytes(_file);
+		ByteBuffer.wrap(bytes).putInt(0, -5);
+		Files.write(_file, bytes);
+		assertThrows(IOException.class, () -> RosterJournal.open(_file));
+	}
+	
+	@Test
+	public void replaySavesNamesLongerThanWriteUtfAllows() throws IOException {
+		String longName = "A".repeat(70000);
+		try (RosterJournal journal = RosterJournal.open(_file)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals("", server.registerStaff(longName, "Lee"));
+			_savedRoster = server.displayRoster();
+		}
+		try (RosterJournal journal = RosterJournal.open(_file)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals(_savedRoster, server.displayRoster());
+			assertEquals(3, server.getRegisteredStaff().size());
+		}
+	}
+	
+	private String replay() throws IOException {
+		try (RosterJournal journal = RosterJournal.open(_file)) {
+			return new ShiftManServer(journal).displayRoster();
+		}
+	}
+	
+	/**
+	 * @return the length of the last record, including its header
+	 */
+	private static int lastRecordLength(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		int position = 0;
+		int length = 0;
+		while (position < bytes.length) {
+			length = 8 + buffer.getInt(position);
+			position += length;
+		}
+		return length;
+	}
+}
@@ -0,0 +1,124 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that a roster saved by RosterSnapshotFile loads again unchanged, and that a file of another version or a
+ * damaged file is not loaded.
+ * @author Martin Tiangco
+ *
+ */
+public class RosterSnapshotFileTest {
+	private static final String LOAD_ERROR = "%ERROR% --- Could not load the roster.";
+	
+	@TempDir
+	Path _dir;
+	private Path _file;
+	private ShiftManServer _server;
+	
+	@BeforeEach
+	public void saveRoster() {
+		_file = _dir.resolve("roster.shmr");
+		_server = new ShiftManServer();
+		assertEquals("", _server.newRoster("Snapshot Shop"));
+		assertEquals("", _server.setWorkingHours("Monday", "08:00", "18:00"));
+		assertEquals("", _server.setWorkingHours("Friday", "09:00", "17:00"));
+		assertEquals("", _server.addShift("Monday", "08:00", "12:00", "1"));
+		assertEquals("", _server.addShift("Monday", "12:00", "18:00", "3"));
+		assertEquals("", _server.addShift("Friday", "09:00", "17:00", "1"));
+		assertEquals("", _server.registerStaff("Ana", "Lee"));
+		assertEquals("", _server.registerStaff("Ren\u00e9", "Lee"));
+		assertEquals("", _server.registerStaff("Ana", "Ng"));
+		assertEquals("", _server.registerStaff("Sam", "Ortiz"));
+		assertEquals("", _server.assignStaff("Monday", "08:00", "12:00", "Ana", "Lee", true));
+		assertEquals("", _server.assignStaff("Monday", "08:00", "12:00", "Ren\u00e9", "Lee", false));
+		assertEquals("", _server.assignStaff("Monday", "12:00", "18:00", "Ana", "Ng", false));
+		assertEquals("", _server.assignStaff("Friday", "09:00", "17:00", "Ana", "Ng", true));
+		assertEquals("", _server.saveRoster(_file));
+	}
+	
+	@Test
+	public void loadedRosterIsTheSameAsTheSavedRoster() {
+		ShiftManServer loaded = new ShiftManServer();
+		assertEquals("", loaded.loadRoster(_file));
+		assertSameRoster(_server, loaded);
+	}
+	
+	@Test
+	public void loadedRosterCanBeChanged() {
+		ShiftManServer loaded = new ShiftManServer();
+		assertEquals("", loaded.loadRoster(_file));
+		assertEquals("", _server.assignStaff("Monday", "12:00", "18:00", "Sam", "Ortiz", false));
+		assertEquals("", loaded.assignStaff("Monday", "12:00", "18:00", "Sam", "Ortiz", false));
+		assertSameRoster(_server, loaded);
+	}
+	
+	@Test
+	public void longNamesAreSaved() {
+		assertEquals("", _server.registerStaff("A".repeat(70000), "Lee"));
+		assertEquals("", _server.saveRoster(_file));
+		ShiftManServer loaded = new ShiftManServer();
+		assertEquals("", loaded.loadRoster(_file));
+		assertSameRoster(_server, loaded);
+	}
+	
+	@Test
+	public void otherVersionIsNotLoaded() throws IOException {
+		byte[] bytes = Files.readAllBytes(_file);
+		ByteBuffer.wrap(bytes).putInt(4, 1);			//version follows the magic number
+		Files.write(_file, bytes);
+		assertThrows(IOException.class, () -> RosterSnapshotFile.read(_file));
+		assertNotLoaded();
+	}
+	
+	@Test
+	public void damagedFileIsNotLoaded() throws IOException {
+		byte[] bytes = Files.readAllBytes(_file);
+		bytes[bytes.length / 2] ^= 1;
+		Files.write(_file, bytes);
+		assertThrows(IOException.class, () -> RosterSnapshotFile.read(_file));
+		assertNotLoaded();
+	}
+	
+	@Test
+	public void truncatedFileIsNotLoaded() throws IOException {
+		byte[] bytes = Files.readAllBytes(_file);
+		Files.write(_file, Arrays.copyOf(bytes, bytes.length - 10));
+		assertThrows(IOException.class, () -> RosterSnapshotFile.read(_file));
+		assertNotLoaded();
+	}
+	
+	/**
+	 * Checks that loading the file fails, and leaves the roster that was there before
+	 */
+	private void assertNotLoaded() {
+		ShiftManServer loaded = new ShiftManServer();
+		assertEquals("", loaded.newRoster("Other Shop"));
+		String before = loaded.displayRoster();
+		assertEquals(LOAD_ERROR, loaded.loadRoster(_file));
+		assertEquals(before, loaded.displayRoster());
+	}
+	
+	private static void assertSameRoster(ShiftManServer expected, ShiftManServer actual) {
+		assertEquals(expected.displayRoster(), actual.displayRoster());
+		assertEquals(expected.getRegisteredStaff(), actual.getRegisteredStaff());
+		assertEquals(expected.getUnassignedStaff(), actual.getUnassignedStaff());
+		assertEquals(expected.understaffedShifts(), actual.understaffedShifts());
+		assertEquals(expected.shiftsWithoutManagers(), actual.shiftsWithoutManagers());
+		for (String name : expected.getRegisteredStaff()) {
+			assertEquals(expected.getRosterForWorker(name), actual.getRosterForWorker(name));
+			assertEquals(expected.getShiftsManagedBy(name), actual.getShiftsManagedBy(name));
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a RosterSnapshot never changes once taken, and that every snapshot read while the roster is being
+ * changed is one whole version of it.
+ * @author Martin Tiangco
+ *
+ */
+public class RosterSnapshotTest {
+	private static final int READERS = 4;
+	private static final int ROUNDS = 2000;
+	
+	@Test
+	public void snapshotDoesNotChangeWithTheRoster() throws IOException {
+		ShiftManServer server = roster();
+		RosterSnapshot snapshot = server.snapshot();
+		String roster = display(snapshot);
+		List<String> staff = snapshot.getRegisteredStaff();
+		List<String> unassigned = snapshot.getUnassignedStaff();
+		List<String> understaffed = snapshot.understaffedShifts();
+		
+		assertEquals("", server.registerStaff("Sam", "Ortiz"));
+		assertEquals("", server.assignStaff("Monday", "08:00", "12:00", "Sam", "Ortiz", true));
+		assertEquals("", server.assignStaff("Monday", "12:00", "18:00", "Ana", "Lee", false));
+		assertEquals("", server.addShift("Tuesday", "09:00", "17:00", "1"));
+		
+		assertEquals(roster, display(snapshot));
+		assertEquals(staff, snapshot.getRegisteredStaff());
+		assertEquals(unassigned, snapshot.getUnassignedStaff());
+		assertEquals(understaffed, snapshot.understaffedShifts());
+		assertEquals(new ArrayList<String>(), snapshot.getRosterForWorker("Sam Ortiz"));
+		assertEquals(display(server.snapshot()), server.displayRoster());		//the new version has every change
+	}
+	
+	/**
+	 * One thread keeps assigning and unassigning a staff member while others read snapshots. In every snapshot,
+	 * the staff member must be unassigned exactly when they have no shifts.
+	 */
+	@Test
+	public void snapshotsReadDuringChangesAreWholeVersions() throws Exception {
+		ShiftManServer server = roster();
+		AtomicBoolean done = new AtomicBoolean();
+		ExecutorService pool = Executors.newFixedThreadPool(READERS + 1);
+		try {
+			List<Future<Integer>> readers = new ArrayList<>();
+			for (int i = 0; i < READERS; i++) {
+				readers.add(pool.submit(() -> {
+					int read = 0;
+					while (!done.get()) {
+						RosterSnapshot snapshot = server.snapshot();
+						boolean unassigned = snapshot.getUnassignedStaff().contains("Ana Lee");
+						boolean hasShifts = !snapshot.getRosterForWorker("Ana Lee").isEmpty();
+						assertEquals(unassigned, !hasShifts);
+						read++;
+					}
+					return read;
+				}));
+			}
+			Future<?> writer = pool.submit(() -> {
+				try {
+					for (int round = 0; round < ROUNDS; round++) {
+						String start = round % 2 == 0 ? "08:00" : "12:00";
+						String end = round % 2 == 0 ? "12:00" : "18:00";
+						assertEquals("", server.assignStaff("Monday", start, end, "Ana", "Lee", false));
+						assertEquals("", server.unassignStaff("Monday", start, end, "Ana", "Lee"));
+					}
+				} finally {
+					done.set(true);
+				}
+			});
+			writer.get();
+			for (Future<Integer> reader : readers) {
+				assertTrue(reader.get() > 0);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	private static ShiftManServer roster() {
+		ShiftManServer server = new ShiftManServer();
+		assertEquals("", server.newRoster("Snapshot Shop"));
+		assertEquals("", server.setWorkingHours("Monday", "08:00", "18:00"));
+		assertEquals("", server.setWorkingHours("Tuesday", "09:00", "17:00"));
+		assertEquals("", server.addShift("Monday", "08:00", "12:00", "1"));
+		assertEquals("", server.addShift("Monday", "12:00", "18:00", "2"));
+		assertEquals("", server.registerStaff("Ana", "Lee"));
+		assertEquals("", server.registerStaff("Kim", "Ng"));
+		assertEquals("", server.assignStaff("Monday", "08:00", "12:00", "Kim", "Ng", false));
+		return server;
+	}
+	
+	private static String display(RosterSnapshot snapshot) throws IOException {
+		StringBuilder out = new StringBuilder();
+		snapshot.displayRoster(out);
+		return out.toString();
+	}
+}
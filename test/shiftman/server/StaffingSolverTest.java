@@ -0,0 +1,97 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that autoFill fills every shift, gives the same assignments for the same roster, and spreads hours evenly.
+ * @author Martin Tiangco
+ *
+ */
+public class StaffingSolverTest {
+	private static final String[] DAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+	private static final int STAFF = 5;
+	private static final int SHIFT_HOURS = 4;
+	
+	@Test
+	public void sameRosterGivesSameAssignments() {
+		ShiftManServer first = roster();
+		ShiftManServer second = roster();
+		List<String> assignments = first.autoFill();
+		assertFalse(assignments.isEmpty());
+		assertEquals(assignments, second.autoFill());
+		assertEquals(first.displayRoster(), second.displayRoster());
+	}
+	
+	@Test
+	public void everyShiftIsFilled() {
+		ShiftManServer server = roster();
+		server.autoFill();
+		assertEquals(new ArrayList<String>(), server.understaffedShifts());
+		assertEquals(new ArrayList<String>(), server.shiftsWithoutManagers());
+		assertEquals(new ArrayList<String>(), server.autoFill());		//nothing left to fill
+	}
+	
+	@Test
+	public void hoursAreSpreadEvenly() {
+		ShiftManServer server = roster();
+		Map<String, Integer> hours = new TreeMap<>();
+		for (String assignment : server.autoFill()) {
+			String name = assignment.substring(assignment.indexOf("] ") + 2).replace(" (manager)", "");
+			hours.merge(name, SHIFT_HOURS, Integer::sum);
+		}
+		assertEquals(STAFF, hours.size());
+		int least = Integer.MAX_VALUE;
+		int most = 0;
+		for (int h : hours.values()) {
+			least = Math.min(least, h);
+			most = Math.max(most, h);
+		}
+		assertTrue(most - least <= SHIFT_HOURS, "hours " + hours);	//within one shift's length
+	}
+	
+	@Test
+	public void noOneIsPutOnTheSameShiftTwice() {
+		ShiftManServer server = roster();
+		assertEquals("", server.assignStaff("Monday", "08:00", "12:00", "G0", "F", false));
+		assertEquals("", server.assignStaff("Monday", "12:00", "16:00", "G1", "F", true));
+		server.autoFill();
+		for (int i = 0; i < STAFF; i++) {
+			Set<String> shifts = new HashSet<>();
+			List<String> managed = server.getShiftsManagedBy("G" + i + " F");
+			List<String> worked = server.getRosterForWorker("G" + i + " F");
+			for (List<String> roster : List.of(managed, worked)) {
+				for (String shift : roster.subList(Math.min(1, roster.size()), roster.size())) {	//after the name
+					assertTrue(shifts.add(shift), "G" + i + " is on " + shift + " twice");
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return a roster with two shifts a day, each needing a manager and one worker, and no one assigned
+	 */
+	private static ShiftManServer roster() {
+		ShiftManServer server = new ShiftManServer();
+		assertEquals("", server.newRoster("Solver Shop"));
+		for (String day : DAYS) {
+			assertEquals("", server.setWorkingHours(day, "08:00", "16:00"));
+			assertEquals("", server.addShift(day, "08:00", "12:00", "1"));
+			assertEquals("", server.addShift(day, "12:00", "16:00", "1"));
+		}
+		for (int i = STAFF - 1; i >= 0; i--) {
+			assertEquals("", server.registerStaff("G" + i, "F"));
+		}
+		return server;
+	}
+}